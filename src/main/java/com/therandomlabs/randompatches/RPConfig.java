@@ -37,6 +37,9 @@ import com.therandomlabs.autoconfigtoml.TOMLConfigSerializer;
 import com.therandomlabs.randompatches.client.CauldronWaterTranslucencyHandler;
 import com.therandomlabs.randompatches.client.RPKeyBindingHandler;
 import com.therandomlabs.randompatches.client.RPWindowHandler;
+import com.therandomlabs.randompatches.network.NetworkTransportHandler;
+import com.therandomlabs.randompatches.network.PacketCompressionDictionary;
+import com.therandomlabs.randompatches.network.PlayerSpeedLimitsHandler;
 import me.sargunvohra.mcmods.autoconfig1u.ConfigData;
 import me.sargunvohra.mcmods.autoconfig1u.annotation.Config;
 import me.sargunvohra.mcmods.autoconfig1u.annotation.ConfigEntry;
@@ -118,6 +121,14 @@ public final class RPConfig implements ConfigData {
 		public boolean returnToMainMenuAfterDisconnect =
 				FabricLoader.getInstance().isDevelopmentEnvironment();
 
+		@TOMLConfigSerializer.Comment({
+				"Shows the number of chunks that have been saved when leaving a singleplayer " +
+						"world.",
+				"Chunks are still saved in the same way as when this is disabled."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean showSaveProgressOnDisconnect = true;
+
 		@TOMLConfigSerializer.Comment("Gives capes to RandomPatches contributors.")
 		@ConfigEntry.Gui.Tooltip
 		public boolean contributorCapes = true;
@@ -133,6 +144,20 @@ public final class RPConfig implements ConfigData {
 					!mixinBlacklist.contains("PlayerEntityRendererContributorCapes") &&
 					!mixinBlacklist.contains("PlayerListEntry");
 		}
+
+		/**
+		 * Returns whether the world save progress should be shown when leaving a singleplayer
+		 * world.
+		 *
+		 * @return {@code true} if the world save progress should be shown when leaving a
+		 * singleplayer world, or otherwise {@code false}.
+		 */
+		public boolean showSaveProgressOnDisconnect() {
+			final List<String> mixinBlacklist = RandomPatches.config().misc.mixinBlacklist;
+			return showSaveProgressOnDisconnect &&
+					!mixinBlacklist.contains("ThreadedAnvilChunkStorage") &&
+					!mixinBlacklist.contains("VersionedChunkStorage");
+		}
 	}
 
 	public static final class ClientBugFixes implements ConfigData {
@@ -421,6 +446,35 @@ public final class RPConfig implements ConfigData {
 		@ConfigEntry.Gui.Tooltip
 		public int keepAliveTimeoutSeconds = 120;
 
+		@TOMLConfigSerializer.Comment({
+				"Enables adaptive KeepAlive scheduling.",
+				"Players whose round-trip time is stable are sent KeepAlive packets less often, " +
+						"and players whose round-trip time fluctuates are sent KeepAlive packets " +
+						"more often.",
+				"The KeepAlive packet interval starts at the configured interval for every player.",
+				"Note that the ping displayed in the player list is only updated when a " +
+						"KeepAlive packet is returned."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean adaptiveKeepAlive;
+
+		@TOMLConfigSerializer.Comment(
+				"The minimum KeepAlive packet interval in seconds when adaptive KeepAlive " +
+						"scheduling is enabled."
+		)
+		@SpecIntInRange(min = 1, max = Integer.MAX_VALUE)
+		@ConfigEntry.Gui.Tooltip
+		public int minAdaptiveKeepAlivePacketIntervalSeconds = 5;
+
+		@TOMLConfigSerializer.Comment({
+				"The maximum KeepAlive packet interval in seconds when adaptive KeepAlive " +
+						"scheduling is enabled.",
+				"This is automatically lowered to the KeepAlive timeout if it is higher."
+		})
+		@SpecIntInRange(min = 1, max = Integer.MAX_VALUE)
+		@ConfigEntry.Gui.Tooltip
+		public int maxAdaptiveKeepAlivePacketIntervalSeconds = 60;
+
 		/**
 		 * {@inheritDoc}
 		 */
@@ -432,6 +486,200 @@ public final class RPConfig implements ConfigData {
 				final int multiple = keepAliveTimeoutSeconds / keepAlivePacketIntervalSeconds + 1;
 				keepAliveTimeoutSeconds = keepAlivePacketIntervalSeconds * multiple;
 			}
+
+			if (maxAdaptiveKeepAlivePacketIntervalSeconds > keepAliveTimeoutSeconds) {
+				maxAdaptiveKeepAlivePacketIntervalSeconds = keepAliveTimeoutSeconds;
+			}
+
+			if (minAdaptiveKeepAlivePacketIntervalSeconds >
+					maxAdaptiveKeepAlivePacketIntervalSeconds) {
+				minAdaptiveKeepAlivePacketIntervalSeconds =
+						maxAdaptiveKeepAlivePacketIntervalSeconds;
+			}
+		}
+	}
+
+	public static final class Network implements ConfigData {
+		@TOMLConfigSerializer.Comment({
+				"Coalesces the flushes of each player connection so that each connection is " +
+						"flushed once at the end of every server tick rather than after almost " +
+						"every packet.",
+				"This reduces the number of system calls made by the network threads.",
+				"Urgent packets such as KeepAlive and disconnect packets are flushed " +
+						"immediately.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean coalesceFlushes;
+
+		@SpecIntInRange(min = 0, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The number of pending bytes above which a coalesced connection is flushed " +
+						"immediately.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int coalescedFlushThresholdBytes = 0x10000;
+
+		@TOMLConfigSerializer.Comment({
+				"The server network transport.",
+				"DEFAULT: Use the native epoll transport on Linux if use-native-transport is " +
+						"enabled in server.properties.",
+				"NATIVE: Always use the native epoll transport if it is available. A warning " +
+						"is logged if it is not.",
+				"NIO: Always use the Java NIO transport.",
+				"Changes to this option are applied when a server is started."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public NetworkTransport transport = NetworkTransport.DEFAULT;
+
+		@SpecIntInRange(min = 0, max = 1024)
+		@TOMLConfigSerializer.Comment({
+				"The number of threads in the server boss event loop group, which accepts " +
+						"connections.",
+				"Set this to 0 to share the worker event loop group.",
+				"If this and the number of worker threads are both 0, the vanilla event loop " +
+						"group is used.",
+				"Changes to this option are applied after a game restart."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int bossThreads;
+
+		@SpecIntInRange(min = 0, max = 1024)
+		@TOMLConfigSerializer.Comment({
+				"The number of threads in the server worker event loop group, which handles " +
+						"connections.",
+				"Set this to 0 to use the Netty default, which is twice the number of " +
+						"available processors.",
+				"Changes to this option are applied after a game restart."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int workerThreads;
+
+		@TOMLConfigSerializer.Comment({
+				"Whether TCP_NODELAY should be enabled for player connections.",
+				"This is enabled in vanilla.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean tcpNoDelay = true;
+
+		@SpecIntInRange(min = 0, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The socket send buffer size (SO_SNDBUF) for player connections in bytes.",
+				"Set this to 0 to use the operating system default.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int sendBufferSize;
+
+		@SpecIntInRange(min = 0, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The socket receive buffer size (SO_RCVBUF) for player connections in bytes.",
+				"Set this to 0 to use the operating system default.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int receiveBufferSize;
+
+		@SpecIntInRange(min = 0, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The write buffer low water mark for player connections in bytes.",
+				"A connection becomes writable again when the number of pending bytes falls " +
+						"below this value.",
+				"This is automatically lowered to the high water mark if it is higher.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int writeBufferLowWaterMark = 0x8000;
+
+		@SpecIntInRange(min = 1, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The write buffer high water mark for player connections in bytes.",
+				"A connection becomes unwritable when the number of pending bytes exceeds " +
+						"this value.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int writeBufferHighWaterMark = 0x10000;
+
+		@TOMLConfigSerializer.Comment({
+				"Drops particle packets while a player connection is above the write buffer " +
+						"high water mark.",
+				"This allows clients that cannot keep up with the server to degrade gracefully " +
+						"rather than letting their pending packets grow without limit.",
+				"Only particle packets are dropped, since they do not affect any client state.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean dropPacketsUnderBackpressure;
+
+		@SpecIntInRange(min = 0, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The number of bytes waiting to be sent above which a player connection is " +
+						"closed.",
+				"Set this to 0 to disable this limit.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int maxPendingBytesPerConnection = 0x4000000;
+
+		@SpecIntInRange(min = 0, max = 256)
+		@TOMLConfigSerializer.Comment({
+				"The number of threads that authenticate logins.",
+				"In vanilla, a new thread is started for every login, which means that a burst " +
+						"of logins starts an unbounded number of threads.",
+				"Set this to 0 to use the vanilla behavior.",
+				"Changes to this option are applied to new logins."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int loginAuthenticationThreads = 4;
+
+		@SpecIntInRange(min = 0, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The maximum number of logins that may wait to be authenticated.",
+				"Logins that exceed this limit are disconnected.",
+				"Set this to 0 to disable this limit.",
+				"This option only applies if login-authentication-threads is not 0."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int maxQueuedLogins = 256;
+
+		@SpecIntInRange(min = 0, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The maximum number of logins from a single address that may wait to be " +
+						"authenticated.",
+				"Logins that exceed this limit are disconnected.",
+				"Queued logins are authenticated in round-robin order across addresses.",
+				"Set this to 0 to disable this limit.",
+				"This option only applies if login-authentication-threads is not 0."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int maxQueuedLoginsPerAddress;
+
+		@SpecIntInRange(min = 0, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The maximum number of authenticated players that may join the world in a " +
+						"single server tick.",
+				"Player data is loaded on the server thread when a player joins the world, so " +
+						"this spreads bursts of logins across multiple ticks.",
+				"Ticks spent waiting to join the world do not count towards the vanilla slow " +
+						"login timeout.",
+				"Set this to 0 to disable this limit."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int maxLoginsAcceptedPerTick;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void validatePostLoad() {
+			if (writeBufferLowWaterMark > writeBufferHighWaterMark) {
+				writeBufferLowWaterMark = writeBufferHighWaterMark;
+			}
+
+			NetworkTransportHandler.onConfigReload(transport);
 		}
 	}
 
@@ -471,7 +719,51 @@ public final class RPConfig implements ConfigData {
 		public int maxClientCustomPayloadPacketSize = 0x1000000;
 	}
 
-	public static final class PlayerSpeedLimits {
+	public static final class PacketCompression implements ConfigData {
+		@TOMLConfigSerializer.Comment({
+				"The path to the preset dictionary used to compress chunk data packets relative " +
+						"to the Minecraft instance directory.",
+				"Set this to an empty string to disable dictionary compression.",
+				"Forward slashes should be used even on Windows to preserve compatibility with " +
+						"other platforms.",
+				"A dictionary is only used for a connection if the client and the server have " +
+						"loaded the same dictionary, so vanilla clients and servers are " +
+						"unaffected.",
+				"Dictionaries can be trained from captured packet samples using " +
+						"com.therandomlabs.randompatches.network.PacketCompressionDictionaryTool.",
+				"This option is both client and server-sided.",
+				"Changes to this option are applied to new connections."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public String dictionary = "";
+
+		@SpecIntInRange(min = 0, max = Integer.MAX_VALUE)
+		@TOMLConfigSerializer.Comment({
+				"The number of compressed chunk data packets that should be captured to " +
+						PacketCompressionDictionary.SAMPLE_DIRECTORY + " for dictionary training.",
+				"Set this to 0 to disable packet capturing.",
+				"This option is both client and server-sided."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int samplesToCapture;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void validatePostLoad() {
+			try {
+				Paths.get(dictionary);
+				dictionary = dictionary.replace('\\', '/');
+			} catch (InvalidPathException ex) {
+				dictionary = "";
+			}
+
+			PacketCompressionDictionary.onConfigReload(dictionary, samplesToCapture);
+		}
+	}
+
+	public static final class PlayerSpeedLimits implements ConfigData {
 		@TOMLConfigSerializer.Comment({
 				"The maximum player speed when not riding a vehicle or flying with elytra.",
 				"The vanilla default is 100.0."
@@ -495,6 +787,186 @@ public final class RPConfig implements ConfigData {
 		@SpecDoubleInRange(min = 0.0, max = Double.MAX_VALUE)
 		@ConfigEntry.Gui.Tooltip
 		public double maxVehicleSpeed = 1000000.0;
+
+		@TOMLConfigSerializer.Comment({
+				"Merges player movement packets that are received before the previous movement " +
+						"packet has been handled so that the movement is validated once " +
+						"against the final position.",
+				"This reduces the cost of movement validation for clients that send several " +
+						"movement packets per tick.",
+				"Movement packets are never merged across other packets.",
+				"The speed limits for a merged movement packet are scaled by the number of " +
+						"packets merged into it."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean coalesceMovePackets;
+
+		@SpecIntInRange(min = 0, max = 4)
+		@TOMLConfigSerializer.Comment({
+				"The minimum permission level of trusted players, who use the trusted player " +
+						"speed limits rather than the above limits.",
+				"Set this to 0 to disable the trusted player speed limits.",
+				"Player speed limits are resolved when a player joins or their permission " +
+						"level changes rather than for every movement packet."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int trustedPlayerPermissionLevel;
+
+		@TOMLConfigSerializer.Comment(
+				"The maximum trusted player speed when not riding a vehicle or flying with elytra."
+		)
+		@SpecFloatInRange(min = 0.0F, max = Float.MAX_VALUE)
+		@ConfigEntry.Gui.Tooltip
+		public float trustedDefaultMaxSpeed = Float.MAX_VALUE;
+
+		@TOMLConfigSerializer.Comment("The maximum trusted player elytra speed.")
+		@SpecFloatInRange(min = 0.0F, max = Float.MAX_VALUE)
+		@ConfigEntry.Gui.Tooltip
+		public float trustedMaxElytraSpeed = Float.MAX_VALUE;
+
+		@TOMLConfigSerializer.Comment("The maximum trusted player vehicle speed.")
+		@SpecDoubleInRange(min = 0.0, max = Double.MAX_VALUE)
+		@ConfigEntry.Gui.Tooltip
+		public double trustedMaxVehicleSpeed = Double.MAX_VALUE;
+
+		/**
+		 * Returns whether player movement packets should be coalesced.
+		 *
+		 * @return {@code true} if player movement packets should be coalesced, or otherwise
+		 * {@code false}.
+		 */
+		public boolean coalesceMovePackets() {
+			//The speed limits for merged movement packets are scaled by
+			//ServerPlayNetworkHandlerPlayerSpeedLimitsMixin.
+			return coalesceMovePackets && !RandomPatches.config().misc.mixinBlacklist.contains(
+					"ServerPlayNetworkHandlerPlayerSpeedLimits"
+			);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void validatePostLoad() {
+			PlayerSpeedLimitsHandler.onConfigReload();
+		}
+	}
+
+	public static final class Pathfinding implements ConfigData {
+		@TOMLConfigSerializer.Comment({
+				"Caches the path node types of block positions so that they are not " +
+						"recomputed for every path search.",
+				"Cached node types are invalidated when nearby blocks change.",
+				"This is disabled by default because the cache is cleared entirely when it " +
+						"becomes full; check the hit rate with the pathfinding statistics " +
+						"command before enabling it on a server."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean cacheNodeTypes;
+
+		@TOMLConfigSerializer.Comment({
+				"Performs mob path searches on worker threads against immutable snapshots of " +
+						"the blocks around the mob.",
+				"While a path search is in progress, the mob does not move, and the path is " +
+						"applied once the search completes.",
+				"Paths are discarded if the mob has moved away from their start or if blocks " +
+						"along them have changed since the search started.",
+				"This only applies to mobs that walk on land."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean asyncPathfinding;
+
+		@SpecIntInRange(min = 1, max = 64)
+		@TOMLConfigSerializer.Comment({
+				"The number of threads that perform asynchronous path searches.",
+				"Changes to this option are applied to new path searches."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int asyncPathfindingThreads = 2;
+
+		@TOMLConfigSerializer.Comment({
+				"Allows mobs of the same type and size that start near each other to reuse " +
+						"a recently found path to the same target rather than searching for " +
+						"a new one.",
+				"Reused paths are spliced to start at the node closest to the mob, and are " +
+						"discarded when blocks along them change."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean reusePaths;
+
+		@SpecIntInRange(min = 1, max = 1200)
+		@TOMLConfigSerializer.Comment("The number of ticks for which found paths can be reused.")
+		@ConfigEntry.Gui.Tooltip
+		public int reusedPathLifetimeTicks = 40;
+
+		@TOMLConfigSerializer.Comment({
+				"Records the number of nodes explored, the number of node type requests, the " +
+						"number of node type cache hits, the wall time and whether a path was " +
+						"found for every path search.",
+				"These statistics are aggregated per entity type and can be viewed with the " +
+						"pathfinding statistics command."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean recordStatistics;
+	}
+
+	public static final class ChunkStorage {
+		@TOMLConfigSerializer.Comment({
+				"Spreads the chunk saving performed by autosaves across several ticks rather " +
+						"than saving all chunks at once.",
+				"Chunks are saved in order of how long they have needed saving.",
+				"Saves requested by commands and saves performed when the server stops are " +
+						"not affected."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean incrementalAutosave;
+
+		@SpecIntInRange(min = 1, max = 6000)
+		@TOMLConfigSerializer.Comment({
+				"The number of ticks across which incremental autosaves are spread.",
+				"Autosaves are performed every 6000 ticks."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int incrementalAutosaveTicks = 1200;
+
+		@TOMLConfigSerializer.Comment({
+				"The compression used for saved chunks.",
+				"DEFLATE: Use deflate compression with the configured compression level.",
+				"NONE: Do not compress chunks. This uses the most disk space but the least " +
+						"CPU time. Chunks that are too large to be stored uncompressed in a " +
+						"region file are still compressed with deflate compression.",
+				"The compression is recorded per chunk, so changing this option does not " +
+						"prevent existing chunks from being read.",
+				"Chunks saved with either option can be read by vanilla Minecraft."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public ChunkCompression chunkCompression = ChunkCompression.DEFLATE;
+
+		@SpecIntInRange(min = 1, max = 9)
+		@TOMLConfigSerializer.Comment({
+				"The deflate compression level used for saved chunks.",
+				"1 is the fastest, and 9 produces the smallest chunks.",
+				"The vanilla default is 6."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int chunkCompressionLevel = 6;
+
+		@TOMLConfigSerializer.Comment({
+				"Reads chunks from memory-mapped region files rather than performing a read " +
+						"system call for every chunk.",
+				"This may speed up mass chunk loading, but increases the virtual memory usage " +
+						"of the server.",
+				"Changes to this option are applied to newly read chunks."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean memoryMapRegionFiles;
+
+		@SpecIntInRange(min = 1, max = 4096)
+		@TOMLConfigSerializer.Comment(
+				"The maximum number of region files that are memory-mapped at the same time."
+		)
+		@ConfigEntry.Gui.Tooltip
+		public int maxMemoryMappedRegionFiles = 64;
 	}
 
 	public static final class Misc implements ConfigData {
@@ -524,6 +996,32 @@ public final class RPConfig implements ConfigData {
 		public int underwaterBoatPassengerEjectionDelayTicks =
 				FabricLoader.getInstance().isDevelopmentEnvironment() ? -1 : 60;
 
+		@TOMLConfigSerializer.Comment({
+				"Caches whether positions are being rained on for the rest of the tick so that " +
+						"entities in the same block columns share one lookup.",
+				"Cached results are discarded every tick and when a block in their column " +
+						"changes."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean cacheRainExposure = true;
+
+		@TOMLConfigSerializer.Comment({
+				"Caches the locations of boats on the server so that the blocks and fluids " +
+						"around idle boats are not sampled every tick.",
+				"Cached locations are discarded when a boat moves or when a block in a chunk " +
+						"around it changes."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean cacheIdleBoatLocations = true;
+
+		@TOMLConfigSerializer.Comment({
+				"Caches the recipe matching results computed when players use the recipe book.",
+				"Repeated clicks on the same recipe are served from the cache until the " +
+						"player's available ingredients change."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean cacheRecipeBookMatches = true;
+
 		@TOMLConfigSerializer.Comment({
 				"The name of the command that reloads this configuration from disk.",
 				"Set this to an empty string to disable the command.",
@@ -532,6 +1030,41 @@ public final class RPConfig implements ConfigData {
 		@ConfigEntry.Gui.Tooltip
 		public String configReloadCommand = "rpconfigreload";
 
+		@TOMLConfigSerializer.Comment({
+				"The name of the command that displays round-trip time statistics derived " +
+						"from KeepAlive responses.",
+				"Set this to an empty string to disable the command.",
+				"Changes to this option are applied when a server is loaded."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public String pingStatisticsCommand = "rpping";
+
+		@TOMLConfigSerializer.Comment({
+				"The name of the command that displays login pipeline statistics.",
+				"Set this to an empty string to disable the command.",
+				"Changes to this option are applied when a server is loaded."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public String loginStatisticsCommand = "rplogins";
+
+		@TOMLConfigSerializer.Comment({
+				"The name of the command that displays network statistics such as the number " +
+						"of coalesced flushes, dropped packets and merged movement packets.",
+				"Set this to an empty string to disable the command.",
+				"Changes to this option are applied when a server is loaded."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public String networkStatisticsCommand = "rpnetwork";
+
+		@TOMLConfigSerializer.Comment({
+				"The name of the command that displays the entity types that spend the most " +
+						"time searching for paths.",
+				"Set this to an empty string to disable the command.",
+				"Changes to this option are applied when a server is loaded."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public String pathfindingStatisticsCommand = "rppathfinding";
+
 		@TOMLConfigSerializer.Comment({
 				"Disables the execution of DataFixerUpper.",
 				"This reduces RAM usage and decreases the Minecraft loading time.",
@@ -556,16 +1089,27 @@ public final class RPConfig implements ConfigData {
 				"- AbstractClientPlayerEntity, PlayerEntityRendererContributorCapes, " +
 						"PlayerListEntry: Required for contributor capes.",
 				"- AnimalEntity: Required for fixing animal breeding hearts.",
-				"- BoatEntity: Required for modifying boat options.",
+				"- BoatEntity:",
+				"  - Required for modifying boat options.",
+				"  - Required for caching idle boat locations.",
 				"- ChannelInitializer: Required for changing the read timeout.",
+				"- ChunkCache:",
+				"  - Required for caching path node types.",
+				"  - Required for asynchronous pathfinding.",
+				"- ClientConnection: Required for packet compression dictionaries.",
 				"- ClientPlayerEntity: Required for the secondary sprint and dismount key " +
 						"bindings.",
 				"- ClientPlayNetworkHandler: Required for making the dismount overlay message " +
 						"show the correct key when the dismount key binding is enabled.",
-				"- CommandManager: Required for the server-sided configuration reload command.",
+				"- ClientPlayNetworkHandlerCompressionDictionary: Required for packet " +
+						"compression dictionaries.",
+				"- CommandManager: Required for the server-sided configuration reload, ping " +
+						"statistics, login statistics, network statistics and pathfinding " +
+						"statistics commands.",
 				"- CompoundTag: Required for fixing player head stacking.",
-				"- CustomPayloadC2SPacket: Required for setting the maximum client custom " +
-						"payload packet size.",
+				"- CustomPayloadC2SPacket:",
+				"  - Required for setting the maximum client custom payload packet size.",
+				"  - Required for packet compression dictionaries.",
 				"- EnchantedBookItem: Required for removing the glowing effect from enchanted " +
 						"books.",
 				"- EndPortalBlockEntityRenderer: Required for fixing end portal rendering.",
@@ -573,6 +1117,11 @@ public final class RPConfig implements ConfigData {
 				"  - Required for fixing MC-2025.",
 				"  - Required for fixing entities not being considered wet in cauldrons " +
 						"filled with water.",
+				"  - Required for caching rain exposure.",
+				"- EntityAsyncPathfinding: Required for asynchronous pathfinding.",
+				"- EntityNavigation:",
+				"  - Required for asynchronous pathfinding.",
+				"  - Required for reusing paths.",
 				"- FinishQuit: Required for making Minecraft show the main menu screen after " +
 						"disconnecting rather than the Realms or multiplayer screen if Seamless " +
 						"Loading Screen is installed.",
@@ -582,32 +1131,88 @@ public final class RPConfig implements ConfigData {
 				"  - If Seamless Loading Screen is installed, this is disabled, and FinishQuit " +
 						"is used instead.",
 				"- GameOptions: Required for all key bindings added by RandomPatches.",
-				"- InputSlotFiller: Required for fixing the recipe book not moving " +
-						"ingredients with tags.",
+				"- InputSlotFiller:",
+				"  - Required for fixing the recipe book not moving ingredients with tags.",
+				"  - Required for indexing inventory slots when the recipe book fills the " +
+						"crafting grid.",
+				"  - Required for caching recipe book matches.",
 				"- KeyBinding:",
 				"  - Required for the secondary sprint key.",
 				"  - Required for making the sneak key not conflict with the dismount key.",
 				"- Keyboard: Required for the narrator toggle, pause, GUI toggle and debug key " +
 						"bindings.",
-				"- LandPathNodeMaker: Required for fixing mobs not being able to cross rails.",
+				"- LandPathNodeMaker:",
+				"  - Required for fixing mobs not being able to cross rails.",
+				"  - Required for recording node type requests in pathfinding statistics.",
+				"- LandPathNodeMakerNodeTypeCache: Required for caching path node types.",
 				"- MinecraftClient:",
 				"  - Required for changing Minecraft window options.",
 				"  - Required for disabling the warning that displays when loading a world that " +
 						"uses experimental settings.",
+				"- MinecraftServerTick:",
+				"  - Required for flush coalescing.",
+				"  - Required for incremental autosaves.",
 				"- Mouse: Required for using mouse buttons for the narrator toggle, pause, GUI " +
 						"toggle and debug key bindings.",
 				"- Option: Required for modifying the framerate limit slider step size.",
+				"- NetworkThreadUtils: Required for coalescing player movement packets.",
 				"- PacketByteBuf: Required for setting the maximum NBT compound tag packet size.",
+				"- PacketDeflater: Required for packet compression dictionaries.",
 				"- PacketInflater: Required for setting the maximum compressed packet size.",
+				"- PacketInflaterCompressionDictionary: Required for packet compression " +
+						"dictionaries.",
+				"- PathNodeNavigator: Required for asynchronous pathfinding.",
+				"- PathNodeNavigatorInstrumentation: Required for pathfinding statistics.",
 				"- PlayerInputC2SPacket: Required for the dismount key binding.",
+				"- PlayerManager: Required for resolving player speed limits when permission " +
+						"levels change.",
+				"- PlayerMoveC2SPacket: Required for coalescing player movement packets.",
 				"- PotionItem: Required for removing the glowing effect from potions.",
+				"- RegionBasedStorage: Required for changing the chunk compression.",
+				"- RegionFile: Required for changing the chunk compression.",
+				"- RegionFileMemoryMapping: Required for memory-mapping region files.",
 				"- RenderLayers: Required for fixing water in cauldrons rendering as opaque.",
+				"- ServerChannelInitializer:",
+				"  - Required for flush coalescing.",
+				"  - Required for changing player connection socket options.",
+				"  - Required for slow client backpressure.",
 				"- ServerLoginNetworkHandler: Required for changing the login timeout.",
-				"- ServerPlayNetworkHandlerKeepAlive: Required for changing KeepAlive packet " +
-						"settings.",
-				"- ServerPlayNetworkHandlerPlayerSpeedLimits: Required for changing player speed " +
-						"limits.",
-				"- ThreadedAnvilChunkStorage: Required for fixing duplicate entity UUIDs.",
+				"- ServerLoginNetworkHandlerAuthentication: Required for the login " +
+						"authentication pool and login statistics.",
+				"- ServerNetworkIo: Required for changing the server network transport and " +
+						"event loop thread counts.",
+				"- ServerPlayerEntity: Required for caching recipe book matches.",
+				"- ServerPlayNetworkHandlerCompressionDictionary: Required for packet " +
+						"compression dictionaries.",
+				"- ServerPlayNetworkHandlerKeepAlive:",
+				"  - Required for changing KeepAlive packet settings.",
+				"  - Required for ping statistics and adaptive KeepAlive scheduling.",
+				"- ServerPlayNetworkHandlerMoveCoalescing: Required for coalescing player " +
+						"movement packets.",
+				"- ServerPlayNetworkHandlerPlayerSpeedLimits:",
+				"  - Required for changing player speed limits.",
+				"  - Required for coalescing player movement packets.",
+				"- ServerWorld:",
+				"  - Required for caching path node types.",
+				"  - Required for asynchronous pathfinding.",
+				"  - Required for reusing paths.",
+				"  - Required for batching animal breeding hearts.",
+				"- StorageIoWorker: Required for changing the chunk compression. This is " +
+						"disabled if RegionBasedStorage or RegionFile is blacklisted.",
+				"- ThreadedAnvilChunkStorage:",
+				"  - Required for fixing duplicate entity UUIDs.",
+				"  - Required for incremental autosaves.",
+				"  - Required for showing the world save progress when leaving a singleplayer " +
+						"world.",
+				"- VersionedChunkStorage: Required for showing the world save progress when " +
+						"leaving a singleplayer world.",
+				"- World: Required for caching rain exposure.",
+				"- WorldChunk:",
+				"  - Required for caching path node types.",
+				"  - Required for asynchronous pathfinding.",
+				"  - Required for reusing paths.",
+				"  - Required for caching idle boat locations.",
+				"  - Required for caching rain exposure.",
 				"This option is both client and server-sided.",
 				"Changes to this option are applied after a game restart."
 		})
@@ -620,6 +1225,10 @@ public final class RPConfig implements ConfigData {
 		@Override
 		public void validatePostLoad() {
 			configReloadCommand = configReloadCommand.trim();
+			pingStatisticsCommand = pingStatisticsCommand.trim();
+			loginStatisticsCommand = loginStatisticsCommand.trim();
+			networkStatisticsCommand = networkStatisticsCommand.trim();
+			pathfindingStatisticsCommand = pathfindingStatisticsCommand.trim();
 			Collections.sort(mixinBlacklist);
 		}
 
@@ -678,6 +1287,13 @@ public final class RPConfig implements ConfigData {
 				return false;
 			}
 
+			//StorageIoWorker writes chunks through the RegionBasedStorage and RegionFile invokers.
+			if ("StorageIoWorker".equals(simpleName) &&
+					(mixinBlacklist.contains("RegionBasedStorage") ||
+							mixinBlacklist.contains("RegionFile"))) {
+				return false;
+			}
+
 			if (mixinClassName.contains("datafixerupper") && !disableDataFixerUpper) {
 				return false;
 			}
@@ -703,6 +1319,24 @@ public final class RPConfig implements ConfigData {
 		@ConfigEntry.Gui.Tooltip
 		public boolean fixAnimalBreedingHearts = true;
 
+		@TOMLConfigSerializer.Comment({
+				"Batches the animal breeding hearts spawned during a tick so that hearts that " +
+						"are close to each other are sent to players as a single packet.",
+				"This greatly reduces the number of packets sent to players near large " +
+						"breeding farms."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public boolean batchAnimalBreedingHearts = true;
+
+		@SpecIntInRange(min = 1, max = 512)
+		@TOMLConfigSerializer.Comment({
+				"The maximum distance in blocks at which batched animal breeding hearts are " +
+						"sent to players.",
+				"The vanilla particle distance is 32."
+		})
+		@ConfigEntry.Gui.Tooltip
+		public int animalBreedingHeartDistance = 32;
+
 		@TOMLConfigSerializer.Comment({
 				"Fixes entities not being considered wet in cauldrons filled with water.",
 				"This allows players to use Riptide in cauldrons filled with water, " +
@@ -764,6 +1398,38 @@ public final class RPConfig implements ConfigData {
 		public boolean fixRecipeBookNotMovingIngredientsWithTags = true;
 	}
 
+	/**
+	 * Chunk compression types.
+	 */
+	public enum ChunkCompression {
+		/**
+		 * Deflate compression.
+		 */
+		DEFLATE,
+		/**
+		 * No compression.
+		 */
+		NONE
+	}
+
+	/**
+	 * Server network transports.
+	 */
+	public enum NetworkTransport {
+		/**
+		 * Use the vanilla behavior.
+		 */
+		DEFAULT,
+		/**
+		 * Always use the native transport if it is available.
+		 */
+		NATIVE,
+		/**
+		 * Always use the Java NIO transport.
+		 */
+		NIO
+	}
+
 	/**
 	 * Player head stacking fix modes.
 	 */
@@ -792,11 +1458,21 @@ public final class RPConfig implements ConfigData {
 	@ConfigEntry.Gui.TransitiveObject
 	public ConnectionTimeouts connectionTimeouts = new ConnectionTimeouts();
 
+	@TOMLConfigSerializer.Comment("Options related to networking.")
+	@ConfigEntry.Category("network")
+	@ConfigEntry.Gui.TransitiveObject
+	public Network network = new Network();
+
 	@TOMLConfigSerializer.Comment("Options related to packet size limits.")
 	@ConfigEntry.Category("packet_size_limits")
 	@ConfigEntry.Gui.TransitiveObject
 	public PacketSizeLimits packetSizeLimits = new PacketSizeLimits();
 
+	@TOMLConfigSerializer.Comment("Options related to packet compression.")
+	@ConfigEntry.Category("packet_compression")
+	@ConfigEntry.Gui.TransitiveObject
+	public PacketCompression packetCompression = new PacketCompression();
+
 	@TOMLConfigSerializer.Comment({
 			"Options related to player speed limits.",
 			"These options are used to fix MC-90062: https://bugs.mojang.com/browse/MC-90062"
@@ -805,6 +1481,16 @@ public final class RPConfig implements ConfigData {
 	@ConfigEntry.Gui.TransitiveObject
 	public PlayerSpeedLimits playerSpeedLimits = new PlayerSpeedLimits();
 
+	@TOMLConfigSerializer.Comment("Options related to mob pathfinding.")
+	@ConfigEntry.Category("pathfinding")
+	@ConfigEntry.Gui.TransitiveObject
+	public Pathfinding pathfinding = new Pathfinding();
+
+	@TOMLConfigSerializer.Comment("Options related to chunk storage.")
+	@ConfigEntry.Category("chunk_storage")
+	@ConfigEntry.Gui.TransitiveObject
+	public ChunkStorage chunkStorage = new ChunkStorage();
+
 	@TOMLConfigSerializer.Comment("Miscellaneous options.")
 	@ConfigEntry.Category("misc")
 	@ConfigEntry.Gui.TransitiveObject
@@ -64,7 +64,7 @@ public final class RandomPatches implements ModInitializer {
 	public static void postClientInit() {
 		CauldronWaterTranslucencyHandler.enable();
 
-		if (RandomPatches.config().client.contributorCapes) {
+		if (RandomPatches.config().client.contributorCapes()) {
 			RPContributorCapeHandler.downloadContributorList();
 		}
 	}
@@ -24,6 +24,7 @@
 package com.therandomlabs.randompatches.client;
 
 import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.world.WorldSaveProgress;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.SaveLevelScreen;
 import net.minecraft.client.gui.screen.TitleScreen;
@@ -44,10 +45,25 @@ public final class DisconnectHandler {
 	public static void disconnect() {
 		final MinecraftClient mc = MinecraftClient.getInstance();
 		final boolean singleplayer = mc.isInSingleplayer();
+		final boolean showSaveProgress =
+				singleplayer && RandomPatches.config().client.showSaveProgressOnDisconnect();
+
+		if (showSaveProgress) {
+			//This must be started before the integrated server is told to stop.
+			WorldSaveProgress.start();
+		}
 
 		mc.world.disconnect();
 
-		if (singleplayer) {
+		if (showSaveProgress) {
+			//This only returns once the integrated server has stopped and all chunks have been
+			//written to disk.
+			try {
+				mc.disconnect(new SaveProgressScreen());
+			} finally {
+				WorldSaveProgress.stop();
+			}
+		} else if (singleplayer) {
 			mc.disconnect(new SaveLevelScreen(new TranslatableText("menu.savingLevel")));
 		} else {
 			mc.disconnect();
@@ -27,12 +27,17 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.mojang.authlib.minecraft.MinecraftProfileTexture;
 import com.therandomlabs.randompatches.RandomPatches;
@@ -49,20 +54,33 @@ import org.apache.commons.io.IOUtils;
 
 /**
  * Handles contributor capes for RandomPatches.
+ * <p>
+ * The contributor list is cached in the configuration directory and only downloaded again once
+ * the cached list has expired. The cached list is loaded when the client is initialized, so
+ * contributor capes are shown immediately after startup and without network access.
  */
 @Environment(EnvType.CLIENT)
 public final class RPContributorCapeHandler {
 	private static final URI CONTRIBUTORS = URI.create(
 			"https://raw.githubusercontent.com/TheRandomLabs/RandomPatches/misc/contributors.txt"
 	);
+	private static final Path CACHE = FabricLoader.getInstance().getConfigDir().
+			resolve(RandomPatches.MOD_ID).
+			resolve("contributors.txt");
+	private static final long CACHE_LIFETIME = TimeUnit.DAYS.toMillis(1L);
+	private static final int MAX_TRIES = 6;
+	private static final long RETRY_DELAY = 10000L;
+
 	private static final Identifier CAPE =
 			new Identifier(RandomPatches.MOD_ID, "textures/contributor_cape.png");
 
 	private static final Set<UUID> temporaryPlayerInfos = new HashSet<>();
 
-	private static final List<String> contributors = new ArrayList<>();
-	private static boolean attemptingDownload;
-	private static int tries;
+	private static final AtomicBoolean refreshing = new AtomicBoolean();
+
+	//This is replaced rather than modified so that it can be safely read on the render thread.
+	private static volatile Set<UUID> contributors = Collections.emptySet();
+	private static volatile long nextRefresh;
 
 	private RPContributorCapeHandler() {}
 
@@ -76,13 +94,12 @@ public final class RPContributorCapeHandler {
 			return;
 		}
 
-		if (contributors.isEmpty()) {
+		if (System.currentTimeMillis() >= nextRefresh) {
 			downloadContributorList();
-			return;
 		}
 
 		if (!FabricLoader.getInstance().isDevelopmentEnvironment() &&
-				!contributors.contains(player.getUuidAsString())) {
+				!contributors.contains(player.getUuid())) {
 			return;
 		}
 
@@ -116,33 +133,97 @@ public final class RPContributorCapeHandler {
 	}
 
 	/**
-	 * Attempts to download the RandomPatches contributor list.
+	 * Loads the cached RandomPatches contributor list, then downloads the RandomPatches
+	 * contributor list if the cached list has expired.
+	 * This is done on a separate thread.
 	 */
 	public static void downloadContributorList() {
-		if (attemptingDownload || tries > 5) {
+		if (!refreshing.compareAndSet(false, true)) {
 			return;
 		}
 
-		attemptingDownload = true;
+		final Thread thread = new Thread(() -> {
+			try {
+				refreshContributorList();
+			} finally {
+				refreshing.set(false);
+			}
+		}, "RandomPatches Contributor List Downloader");
+
+		thread.setDaemon(true);
+		thread.start();
+	}
 
-		new Thread(() -> {
+	private static void refreshContributorList() {
+		if (contributors.isEmpty() && Files.isRegularFile(CACHE)) {
 			try {
-				contributors.clear();
-				contributors.addAll(IOUtils.readLines(new StringReader(
-						IOUtils.toString(CONTRIBUTORS, StandardCharsets.UTF_8)
-				)));
+				contributors = parseContributors(Files.readAllLines(CACHE, StandardCharsets.UTF_8));
+				nextRefresh = Files.getLastModifiedTime(CACHE).toMillis() + CACHE_LIFETIME;
 			} catch (IOException ex) {
-				RandomPatches.logger.error("Failed to download contributor list", ex);
-				tries++;
+				RandomPatches.logger.error("Failed to read cached contributor list", ex);
+			}
+
+			if (System.currentTimeMillis() < nextRefresh) {
+				return;
+			}
+		}
 
+		for (int tries = 0; tries < MAX_TRIES; tries++) {
+			if (tries != 0) {
 				try {
-					Thread.sleep(10000L);
-				} catch (InterruptedException ex2) {
-					RandomPatches.logger.error("Failed to sleep", ex2);
+					Thread.sleep(RETRY_DELAY);
+				} catch (InterruptedException ex) {
+					RandomPatches.logger.error("Failed to sleep", ex);
+					break;
 				}
 			}
 
-			attemptingDownload = false;
-		}).start();
+			try {
+				final String list = IOUtils.toString(CONTRIBUTORS, StandardCharsets.UTF_8);
+				contributors = parseContributors(IOUtils.readLines(new StringReader(list)));
+				writeCache(list);
+				break;
+			} catch (IOException ex) {
+				RandomPatches.logger.error("Failed to download contributor list", ex);
+			}
+		}
+
+		//If the download failed, the list is not downloaded again until the cache lifetime has
+		//passed.
+		nextRefresh = System.currentTimeMillis() + CACHE_LIFETIME;
+	}
+
+	private static Set<UUID> parseContributors(List<String> lines) {
+		final Set<UUID> contributors = new HashSet<>();
+
+		for (String line : lines) {
+			final String trimmed = line.trim();
+
+			if (trimmed.isEmpty()) {
+				continue;
+			}
+
+			try {
+				contributors.add(UUID.fromString(trimmed));
+			} catch (IllegalArgumentException ex) {
+				RandomPatches.logger.warn("Invalid contributor UUID: {}", trimmed);
+			}
+		}
+
+		return Collections.unmodifiableSet(contributors);
+	}
+
+	private static void writeCache(String list) {
+		try {
+			Files.createDirectories(CACHE.getParent());
+
+			//The list is written to a temporary file first so that an incomplete list is never
+			//read.
+			final Path temporary = CACHE.resolveSibling(CACHE.getFileName() + ".tmp");
+			Files.write(temporary, list.getBytes(StandardCharsets.UTF_8));
+			Files.move(temporary, CACHE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException ex) {
+			RandomPatches.logger.error("Failed to cache contributor list", ex);
+		}
 	}
 }
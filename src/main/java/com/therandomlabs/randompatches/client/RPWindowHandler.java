@@ -28,11 +28,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.therandomlabs.randompatches.RPConfig;
 import com.therandomlabs.randompatches.RandomPatches;
 import net.fabricmc.api.EnvType;
@@ -46,12 +59,10 @@ import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.client.resource.language.I18n;
 import net.minecraft.client.texture.TextureUtil;
-import net.minecraft.resource.DefaultResourcePack;
+import net.minecraft.client.util.Window;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.util.Identifier;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.text.StrLookup;
-import org.apache.commons.lang3.text.StrSubstitutor;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.lwjgl.glfw.GLFW;
 import org.lwjgl.glfw.GLFWImage;
@@ -65,30 +76,102 @@ import org.lwjgl.system.MemoryUtil;
  */
 @Environment(EnvType.CLIENT)
 public final class RPWindowHandler {
-	private static final class TitleLookup extends StrLookup<String> {
-		private static final TitleLookup INSTANCE = new TitleLookup();
+	private static final class TitleTemplate {
+		@FunctionalInterface
+		private interface Segment {
+			void append(StringBuilder title, @Nullable String activity);
+		}
 
-		@Nullable
-		@Override
-		public String lookup(String key) {
-			if (key.equals("mcversion")) {
-				return SharedConstants.getGameVersion().getName();
+		private static final String VARIABLE_PREFIX = "${";
+		private static final char VARIABLE_SUFFIX = '}';
+		private static final char ESCAPE = '$';
+
+		private final List<Segment> segments = new ArrayList<>();
+
+		//This parses templates in the same way as StrSubstitutor. However, unlike StrSubstitutor,
+		//variables in variable values are not substituted.
+		private TitleTemplate(String template) {
+			final StringBuilder literal = new StringBuilder();
+			int index = 0;
+
+			while (index < template.length()) {
+				if (!template.startsWith(VARIABLE_PREFIX, index)) {
+					literal.append(template.charAt(index++));
+					continue;
+				}
+
+				if (index > 0 && template.charAt(index - 1) == ESCAPE) {
+					//The escape character has already been appended and is kept as the
+					//variable prefix character.
+					index++;
+					continue;
+				}
+
+				final int end = template.indexOf(VARIABLE_SUFFIX, index + VARIABLE_PREFIX.length());
+
+				if (end == -1) {
+					literal.append(template, index, template.length());
+					break;
+				}
+
+				final String variable = template.substring(index + VARIABLE_PREFIX.length(), end);
+
+				if ("activity".equals(variable)) {
+					addLiteral(literal);
+					segments.add((title, activity) -> title.append(
+							activity == null ? VARIABLE_PREFIX + variable + VARIABLE_SUFFIX :
+									activity
+					));
+				} else if ("username".equals(variable)) {
+					addLiteral(literal);
+					segments.add((title, activity) -> title.append(
+							MinecraftClient.getInstance().getSession().getUsername()
+					));
+				} else {
+					final String value = lookup(variable);
+					literal.append(
+							value == null ? VARIABLE_PREFIX + variable + VARIABLE_SUFFIX : value
+					);
+				}
+
+				index = end + 1;
+			}
+
+			addLiteral(literal);
+		}
+
+		private String render(@Nullable String activity) {
+			final StringBuilder title = new StringBuilder();
+
+			for (Segment segment : segments) {
+				segment.append(title, activity);
 			}
 
-			if (key.equals("activity")) {
-				return activity;
+			return title.toString();
+		}
+
+		private void addLiteral(StringBuilder literal) {
+			if (literal.length() != 0) {
+				final String string = literal.toString();
+				segments.add((title, activity) -> title.append(string));
+				literal.setLength(0);
 			}
+		}
 
-			if (key.equals("username")) {
-				return MinecraftClient.getInstance().getSession().getUsername();
+		//Returns the values of the variables that do not change until the next configuration
+		//reload.
+		@Nullable
+		private static String lookup(String variable) {
+			if ("mcversion".equals(variable)) {
+				return SharedConstants.getGameVersion().getName();
 			}
 
-			if (key.equals("modsloaded")) {
+			if ("modsloaded".equals(variable)) {
 				return NumberFormat.getInstance().format(rootNonLibraryMods);
 			}
 
-			if (key.startsWith("modversion:")) {
-				final String modID = key.substring("modversion:".length());
+			if (variable.startsWith("modversion:")) {
+				final String modID = variable.substring("modversion:".length());
 				final Optional<ModContainer> container =
 						FabricLoader.getInstance().getModContainer(modID);
 
@@ -101,14 +184,91 @@ public final class RPWindowHandler {
 		}
 	}
 
+	private static final class IconKey {
+		//For vanilla icons, this is the path in the vanilla resource pack.
+		private final String path;
+		private final boolean vanilla;
+		private final long lastModified;
+		private final long fileSize;
+		private final int size;
+
+		private IconKey(String path, boolean vanilla, long lastModified, long fileSize, int size) {
+			this.path = path;
+			this.vanilla = vanilla;
+			this.lastModified = lastModified;
+			this.fileSize = fileSize;
+			this.size = size;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+
+			if (!(object instanceof IconKey)) {
+				return false;
+			}
+
+			final IconKey key = (IconKey) object;
+			return vanilla == key.vanilla && lastModified == key.lastModified &&
+					fileSize == key.fileSize && size == key.size && path.equals(key.path);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, vanilla, lastModified, fileSize, size);
+		}
+
+		private InputStream open() throws IOException {
+			if (vanilla) {
+				return MinecraftClient.getInstance().getResourcePackDownloader().getPack().open(
+						ResourceType.CLIENT_RESOURCES, new Identifier(path)
+				);
+			}
+
+			return new FileInputStream(path);
+		}
+
+		private static IconKey file(String path, int size) throws IOException {
+			final BasicFileAttributes attributes =
+					Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+			return new IconKey(
+					path, false, attributes.lastModifiedTime().toMillis(), attributes.size(), size
+			);
+		}
+
+		private static IconKey vanilla(String path, int size) {
+			return new IconKey(path, true, 0L, 0L, size);
+		}
+	}
+
 	private static final Pattern fabricPattern = Pattern.compile("^fabric-.*(-v\\d+)$");
 
-	private static final StrSubstitutor titleSubstitutor = new StrSubstitutor(TitleLookup.INSTANCE);
+	//Decoded icons are kept in native memory so that configuration reloads do not need to decode
+	//them again.
+	private static final Map<IconKey, ByteBuffer> iconCache = new HashMap<>();
+	private static final Executor iconLoader = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().
+					setNameFormat("RandomPatches Window Icon Loader").
+					setDaemon(true).
+					build()
+	);
 
 	private static int rootNonLibraryMods;
 
+	//These are compiled when they are first used after a configuration reload.
 	@Nullable
-	private static String activity;
+	private static volatile TitleTemplate titleTemplate;
+	@Nullable
+	private static volatile TitleTemplate titleWithActivityTemplate;
+
+	@Nullable
+	private static volatile String lastWindowTitle;
+
+	@Nullable
+	private static volatile CompletableFuture<Void> iconPreload;
+
 	private static boolean enabled;
 
 	private RPWindowHandler() {}
@@ -120,6 +280,7 @@ public final class RPWindowHandler {
 		if (!enabled) {
 			enabled = true;
 			getRootNonLibraryMods();
+			preloadWindowIcons();
 		}
 	}
 
@@ -127,8 +288,15 @@ public final class RPWindowHandler {
 	 * Called by {@link RPConfig.Window} when the RandomPatches configuration is reloaded.
 	 */
 	public static void onConfigReload() {
+		titleTemplate = null;
+		titleWithActivityTemplate = null;
+		//The title may have been set by vanilla code since it was last set by setWindowTitle.
+		lastWindowTitle = null;
+
 		if (enabled) {
-			MinecraftClient.getInstance().execute(RPWindowHandler::applySettings);
+			preloadWindowIcons().thenRunAsync(
+					RPWindowHandler::applySettings, MinecraftClient.getInstance()
+			);
 		}
 	}
 
@@ -144,14 +312,18 @@ public final class RPWindowHandler {
 			return RPConfig.Window.DEFAULT_TITLE;
 		}
 
-		final RPConfig.Window config = RandomPatches.config().client.window;
-
 		final MinecraftClient mc = MinecraftClient.getInstance();
 		final ClientPlayNetworkHandler handler = mc.getNetworkHandler();
 
 		if (handler == null || !handler.getConnection().isOpen()) {
-			activity = null;
-			return titleSubstitutor.replace(config.title);
+			TitleTemplate template = titleTemplate;
+
+			if (template == null) {
+				template = new TitleTemplate(RandomPatches.config().client.window.title);
+				titleTemplate = template;
+			}
+
+			return template.render(null);
 		}
 
 		final String activityKey;
@@ -167,8 +339,28 @@ public final class RPWindowHandler {
 			activityKey = "title.multiplayer.lan";
 		}
 
-		activity = I18n.translate(activityKey);
-		return titleSubstitutor.replace(config.titleWithActivity);
+		TitleTemplate template = titleWithActivityTemplate;
+
+		if (template == null) {
+			template = new TitleTemplate(RandomPatches.config().client.window.titleWithActivity);
+			titleWithActivityTemplate = template;
+		}
+
+		return template.render(I18n.translate(activityKey));
+	}
+
+	/**
+	 * Sets the Minecraft window title if it is different from the title that was last set by
+	 * this method.
+	 *
+	 * @param window a {@link Window}.
+	 * @param title a window title.
+	 */
+	public static void setWindowTitle(Window window, String title) {
+		if (!title.equals(lastWindowTitle)) {
+			lastWindowTitle = title;
+			window.setTitle(title);
+		}
 	}
 
 	/**
@@ -195,7 +387,6 @@ public final class RPWindowHandler {
 	 * @param vanillaIcon32 the 32x32 vanilla icon.
 	 * @param window the window handle.
 	 */
-	@SuppressWarnings("PMD.CloseResource")
 	public static void updateWindowIcon(
 			@Nullable InputStream vanillaIcon16, @Nullable InputStream vanillaIcon32, long window
 	) {
@@ -204,178 +395,168 @@ public final class RPWindowHandler {
 			return;
 		}
 
-		final RPConfig.Window config = RandomPatches.config().client.window;
-
-		final MinecraftClient mc = MinecraftClient.getInstance();
+		final CompletableFuture<Void> preload = iconPreload;
 
-		InputStream stream16 = null;
-		InputStream stream32 = null;
-		InputStream stream256 = null;
+		if (preload != null) {
+			preload.join();
+		}
 
 		try (MemoryStack stack = MemoryStack.stackPush()) {
-			if (config.icon16.isEmpty()) {
-				final DefaultResourcePack vanillaPack = mc.getResourcePackDownloader().getPack();
-
-				stream16 = vanillaIcon16 == null ? vanillaPack.open(
-						ResourceType.CLIENT_RESOURCES,
-						new Identifier("icons/icon_16x16.png")
-				) : vanillaIcon16;
-
-				stream32 = vanillaIcon32 == null ? vanillaPack.open(
-						ResourceType.CLIENT_RESOURCES,
-						new Identifier("icons/icon_32x32.png")
-				) : vanillaIcon32;
-
-				if (MinecraftClient.IS_SYSTEM_MAC) {
-					stream256 = vanillaPack.open(
-							ResourceType.CLIENT_RESOURCES,
-							new Identifier("icons/icon_256x256.png")
-					);
-				}
-			} else {
-				stream16 = new FileInputStream(config.icon16);
-				stream32 = new FileInputStream(config.icon32);
-
-				if (MinecraftClient.IS_SYSTEM_MAC) {
-					stream256 = new FileInputStream(config.icon256);
-				}
+			final List<IconKey> keys = getIconKeys();
+			final GLFWImage.Buffer imageBuffer = GLFWImage.mallocStack(keys.size(), stack);
+
+			for (int i = 0; i < keys.size(); i++) {
+				final IconKey key = keys.get(i);
+
+				imageBuffer.position(i);
+				imageBuffer.width(key.size);
+				imageBuffer.height(key.size);
+				imageBuffer.pixels(getIcon(
+						key, i == 0 ? vanillaIcon16 : i == 1 ? vanillaIcon32 : null
+				));
 			}
 
-			final IntBuffer x = stack.mallocInt(1);
-			final IntBuffer y = stack.mallocInt(1);
-			final IntBuffer channels = stack.mallocInt(1);
-
-			final GLFWImage.Buffer imageBuffer = GLFWImage.mallocStack(2, stack);
-
-			final ByteBuffer image16 = readImageToBuffer(stream16, x, y, channels, 16);
+			imageBuffer.position(0);
+			//GLFW copies the pixels, so the cached icons can be reused.
+			GLFW.glfwSetWindowIcon(window, imageBuffer);
+			retainIcons(keys);
+		} catch (IOException ex) {
+			RandomPatches.logger.error("Failed to load icon", ex);
+		} finally {
+			IOUtils.closeQuietly(vanillaIcon16);
+			IOUtils.closeQuietly(vanillaIcon32);
+		}
+	}
 
-			if (image16 == null) {
-				throw new IllegalStateException(
-						"Failed to load icon: " + STBImage.stbi_failure_reason()
-				);
-			}
+	private static void applySettings() {
+		if (RandomPatches.config().client.window.customTitle) {
+			MinecraftClient.getInstance().updateWindowTitle();
+		}
 
-			final boolean image16Resized = x.get(0) != 16 || y.get(0) != 16;
+		updateWindowIcon(null, null);
+	}
 
-			imageBuffer.position(0);
-			imageBuffer.width(16);
-			imageBuffer.height(16);
-			imageBuffer.pixels(image16);
+	//Decodes the configured icons on the icon loader thread so that the render thread only has
+	//to wait for them if they are not ready yet. Vanilla icons are not preloaded, since they are
+	//small and are only decoded once.
+	private static CompletableFuture<Void> preloadWindowIcons() {
+		final RPConfig.Window config = RandomPatches.config().client.window;
 
-			final ByteBuffer image32 = readImageToBuffer(stream32, x, y, channels, 32);
+		if (!config.customIcon || config.icon16.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
 
-			if (image32 == null) {
-				throw new IllegalStateException(
-						"Failed to load icon: " + STBImage.stbi_failure_reason()
-				);
+		final CompletableFuture<Void> preload = CompletableFuture.runAsync(() -> {
+			try {
+				for (IconKey key : getIconKeys()) {
+					getIcon(key, null);
+				}
+			} catch (IOException | IllegalStateException ignored) {
+				//The icons are loaded again on the render thread, which logs the error.
 			}
+		}, iconLoader);
 
-			final boolean image32Resized = x.get(0) != 32 || y.get(0) != 32;
-
-			imageBuffer.position(1);
-			imageBuffer.width(32);
-			imageBuffer.height(32);
-			imageBuffer.pixels(image32);
-
-			ByteBuffer image256 = null;
-			final boolean image256Resized;
+		iconPreload = preload;
+		return preload;
+	}
 
-			if (stream256 == null) {
-				image256Resized = false;
-			} else {
-				image256 = readImageToBuffer(stream256, x, y, channels, 256);
+	private static List<IconKey> getIconKeys() throws IOException {
+		final RPConfig.Window config = RandomPatches.config().client.window;
+		final List<IconKey> keys = new ArrayList<>(3);
 
-				if (image256 == null) {
-					throw new IllegalStateException(
-							"Failed to load icon: " + STBImage.stbi_failure_reason()
-					);
-				}
+		if (config.icon16.isEmpty()) {
+			keys.add(IconKey.vanilla("icons/icon_16x16.png", 16));
+			keys.add(IconKey.vanilla("icons/icon_32x32.png", 32));
 
-				image256Resized = x.get(0) != 256 || y.get(0) != 256;
+			if (MinecraftClient.IS_SYSTEM_MAC) {
+				keys.add(IconKey.vanilla("icons/icon_256x256.png", 256));
+			}
+		} else {
+			keys.add(IconKey.file(config.icon16, 16));
+			keys.add(IconKey.file(config.icon32, 32));
 
-				imageBuffer.position(2);
-				imageBuffer.width(256);
-				imageBuffer.height(256);
-				imageBuffer.pixels(image256);
-				imageBuffer.position(0);
+			if (MinecraftClient.IS_SYSTEM_MAC) {
+				keys.add(IconKey.file(config.icon256, 256));
 			}
+		}
 
-			imageBuffer.position(0);
-			GLFW.glfwSetWindowIcon(window, imageBuffer);
+		return keys;
+	}
 
-			//If the image has to be resized, readImageToBuffer allocates a new buffer using
-			//MemoryUtil.memAlloc and calls STBImage#stbi_image_free on the original buffer.
-			if (image16Resized) {
-				MemoryUtil.memFree(image16);
-			} else {
-				STBImage.stbi_image_free(image16);
-			}
+	private static ByteBuffer getIcon(IconKey key, @Nullable InputStream vanillaIcon)
+			throws IOException {
+		synchronized (iconCache) {
+			final ByteBuffer cached = iconCache.get(key);
 
-			if (image32Resized) {
-				MemoryUtil.memFree(image32);
-			} else {
-				STBImage.stbi_image_free(image32);
+			if (cached != null) {
+				return cached;
 			}
 
-			if (MinecraftClient.IS_SYSTEM_MAC) {
-				if (image256Resized) {
-					MemoryUtil.memFree(image256);
-				} else {
-					//noinspection ConstantConditions
-					STBImage.stbi_image_free(image256);
+			final ByteBuffer icon;
+
+			if (vanillaIcon != null) {
+				icon = readImageToBuffer(vanillaIcon, key.size);
+			} else {
+				try (InputStream stream = key.open()) {
+					icon = readImageToBuffer(stream, key.size);
 				}
 			}
-		} catch (IOException ex) {
-			RandomPatches.logger.error("Failed to load icon", ex);
-		} finally {
-			IOUtils.closeQuietly(stream16);
-			IOUtils.closeQuietly(stream32);
 
-			if (MinecraftClient.IS_SYSTEM_MAC) {
-				IOUtils.closeQuietly(stream256);
-			}
+			iconCache.put(key, icon);
+			return icon;
 		}
 	}
 
-	private static void applySettings() {
-		if (RandomPatches.config().client.window.customTitle) {
-			MinecraftClient.getInstance().updateWindowTitle();
-		}
+	//Frees the cached icons that are no longer configured.
+	private static void retainIcons(List<IconKey> keys) {
+		synchronized (iconCache) {
+			final Iterator<Map.Entry<IconKey, ByteBuffer>> it = iconCache.entrySet().iterator();
 
-		updateWindowIcon(null, null);
+			while (it.hasNext()) {
+				final Map.Entry<IconKey, ByteBuffer> entry = it.next();
+
+				if (!keys.contains(entry.getKey())) {
+					MemoryUtil.memFree(entry.getValue());
+					it.remove();
+				}
+			}
+		}
 	}
 
-	@Nullable
-	private static ByteBuffer readImageToBuffer(
-			InputStream stream, IntBuffer x, IntBuffer y, IntBuffer channels, int size
-	) throws IOException {
+	//Returns a buffer allocated using MemoryUtil.memAlloc containing the RGBA pixels of the
+	//image resized to the specified size.
+	private static ByteBuffer readImageToBuffer(InputStream stream, int size) throws IOException {
 		ByteBuffer resource = null;
 
-		try {
+		try (MemoryStack stack = MemoryStack.stackPush()) {
+			final IntBuffer x = stack.mallocInt(1);
+			final IntBuffer y = stack.mallocInt(1);
+			final IntBuffer channels = stack.mallocInt(1);
+
 			resource = TextureUtil.readAllToByteBuffer(stream);
 			resource.rewind();
 
 			final ByteBuffer image = STBImage.stbi_load_from_memory(resource, x, y, channels, 4);
 
 			if (image == null) {
-				return null;
+				throw new IllegalStateException(
+						"Failed to load icon: " + STBImage.stbi_failure_reason()
+				);
 			}
 
 			final int width = x.get(0);
 			final int height = y.get(0);
+			final ByteBuffer resized = MemoryUtil.memAlloc(size * size * 4);
 
 			if (width == size && height == size) {
-				return image;
+				MemoryUtil.memCopy(image, resized);
+			} else {
+				STBImageResize.stbir_resize_uint8(
+						image, width, height, 0, resized, size, size, 0, 4
+				);
 			}
 
-			final ByteBuffer resized = MemoryUtil.memAlloc(size * size * 4);
-
-			STBImageResize.stbir_resize_uint8(
-					image, width, height, 0, resized, size, size, 0, 4
-			);
-
 			STBImage.stbi_image_free(image);
-
 			return resized;
 		} finally {
 			if (resource != null) {
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.client;
+
+import com.therandomlabs.randompatches.world.WorldSaveProgress;
+import net.minecraft.client.gui.screen.SaveLevelScreen;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.text.TranslatableText;
+
+/**
+ * A {@link SaveLevelScreen} that also displays the number of chunks that have been saved.
+ */
+public final class SaveProgressScreen extends SaveLevelScreen {
+	/**
+	 * Constructs a {@link SaveProgressScreen}.
+	 */
+	public SaveProgressScreen() {
+		super(new TranslatableText("menu.savingLevel"));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void render(MatrixStack matrices, int mouseX, int mouseY, float delta) {
+		super.render(matrices, mouseX, mouseY, delta);
+
+		final int total = WorldSaveProgress.getTotal();
+
+		if (total != 0) {
+			drawCenteredText(
+					matrices, textRenderer,
+					new TranslatableText(
+							"menu.savingLevel.progress", WorldSaveProgress.getSaved(), total
+					),
+					width / 2, 90, 0xFFFFFF
+			);
+		}
+	}
+}
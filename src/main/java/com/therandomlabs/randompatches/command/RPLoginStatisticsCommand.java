@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.network.LoginAuthenticationPool;
+import com.therandomlabs.randompatches.network.LoginStatistics;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.LiteralText;
+
+/**
+ * The command that displays login pipeline statistics.
+ */
+public final class RPLoginStatisticsCommand {
+	private RPLoginStatisticsCommand() {}
+
+	/**
+	 * Registers the command that displays login pipeline statistics.
+	 *
+	 * @param dispatcher the {@link CommandDispatcher}.
+	 */
+	public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+		final String name = RandomPatches.config().misc.loginStatisticsCommand;
+
+		if (!name.isEmpty()) {
+			dispatcher.register(
+					LiteralArgumentBuilder.<ServerCommandSource>literal(name).
+							requires(source -> source.hasPermissionLevel(2)).
+							executes(context -> execute(context.getSource()))
+			);
+		}
+	}
+
+	private static int execute(ServerCommandSource source) {
+		source.sendFeedback(new LiteralText(String.format(
+				"Queued logins: %d", LoginAuthenticationPool.getQueueDepth()
+		)), false);
+
+		for (LoginStatistics.Stage stage : LoginStatistics.Stage.values()) {
+			source.sendFeedback(new LiteralText(String.format(
+					"%s: %d samples, mean %.1f ms, max %.1f ms",
+					stage, stage.getCount(), stage.getMeanMillis(), stage.getMaxMillis()
+			)), false);
+		}
+
+		return Command.SINGLE_SUCCESS;
+	}
+}
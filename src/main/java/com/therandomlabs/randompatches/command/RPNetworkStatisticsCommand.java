@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.command;
+
+import java.util.List;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.network.BackpressureHandler;
+import com.therandomlabs.randompatches.network.FlushCoalescingHandler;
+import com.therandomlabs.randompatches.network.MovePacketCoalescingAccessor;
+import net.minecraft.command.argument.EntityArgumentType;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.LiteralText;
+
+/**
+ * The command that displays network statistics.
+ */
+public final class RPNetworkStatisticsCommand {
+	private RPNetworkStatisticsCommand() {}
+
+	/**
+	 * Registers the command that displays network statistics.
+	 *
+	 * @param dispatcher the {@link CommandDispatcher}.
+	 */
+	public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+		final String name = RandomPatches.config().misc.networkStatisticsCommand;
+
+		if (!name.isEmpty()) {
+			dispatcher.register(
+					LiteralArgumentBuilder.<ServerCommandSource>literal(name).
+							requires(source -> source.hasPermissionLevel(2)).
+							executes(context -> execute(context.getSource())).
+							then(CommandManager.argument("player", EntityArgumentType.player()).
+									executes(context -> execute(
+											context.getSource(),
+											EntityArgumentType.getPlayer(context, "player")
+									))
+							)
+			);
+		}
+	}
+
+	private static int execute(ServerCommandSource source) {
+		final long requestedFlushes = FlushCoalescingHandler.getRequestedFlushes();
+		final long performedFlushes = FlushCoalescingHandler.getPerformedFlushes();
+
+		source.sendFeedback(new LiteralText(String.format(
+				"Flush coalescing: %d flushes requested, %d performed (%.1f%% avoided)",
+				requestedFlushes, performedFlushes, requestedFlushes == 0L ? 0.0 :
+						100.0 * (requestedFlushes - performedFlushes) / requestedFlushes
+		)), false);
+
+		source.sendFeedback(new LiteralText(String.format(
+				"Backpressure: %.1f s unwritable, %d packets dropped, %d connections closed",
+				BackpressureHandler.getUnwritableNanos() / 1.0E9,
+				BackpressureHandler.getDroppedPackets(), BackpressureHandler.getDisconnections()
+		)), false);
+
+		final List<ServerPlayerEntity> players =
+				source.getMinecraftServer().getPlayerManager().getPlayerList();
+		long coalescedMovePackets = 0L;
+
+		for (ServerPlayerEntity player : players) {
+			coalescedMovePackets += getCoalescedMovePackets(player);
+		}
+
+		source.sendFeedback(new LiteralText(String.format(
+				"Movement packet coalescing: %d packets merged for connected players",
+				coalescedMovePackets
+		)), false);
+
+		return Command.SINGLE_SUCCESS;
+	}
+
+	private static int execute(ServerCommandSource source, ServerPlayerEntity player) {
+		source.sendFeedback(new LiteralText(String.format(
+				"%s: %d movement packets merged",
+				player.getEntityName(), getCoalescedMovePackets(player)
+		)), false);
+
+		return Command.SINGLE_SUCCESS;
+	}
+
+	private static long getCoalescedMovePackets(ServerPlayerEntity player) {
+		return player.networkHandler instanceof MovePacketCoalescingAccessor ?
+				((MovePacketCoalescingAccessor) player.networkHandler).getCoalescedMovePackets() :
+				0L;
+	}
+}
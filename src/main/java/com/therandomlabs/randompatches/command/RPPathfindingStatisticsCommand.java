@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.command;
+
+import java.util.List;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.world.PathNodeTypeCache;
+import com.therandomlabs.randompatches.world.PathReuseCache;
+import com.therandomlabs.randompatches.world.PathfindingStatistics;
+import net.minecraft.entity.EntityType;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.LiteralText;
+
+/**
+ * The command that displays the entity types that spend the most time searching for paths.
+ */
+public final class RPPathfindingStatisticsCommand {
+	private static final int MAX_ENTRIES = 10;
+	private static final double NANOS_PER_MINUTE = 60.0E9;
+
+	private RPPathfindingStatisticsCommand() {}
+
+	/**
+	 * Registers the command that displays pathfinding statistics.
+	 *
+	 * @param dispatcher the {@link CommandDispatcher}.
+	 */
+	public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+		final String name = RandomPatches.config().misc.pathfindingStatisticsCommand;
+
+		if (!name.isEmpty()) {
+			dispatcher.register(
+					LiteralArgumentBuilder.<ServerCommandSource>literal(name).
+							requires(source -> source.hasPermissionLevel(2)).
+							executes(context -> execute(context.getSource())).
+							then(CommandManager.literal("reset").
+									executes(context -> reset(context.getSource()))
+							)
+			);
+		}
+	}
+
+	private static int execute(ServerCommandSource source) {
+		final long cacheHits = PathNodeTypeCache.getHits();
+		final long cacheMisses = PathNodeTypeCache.getMisses();
+
+		if (cacheHits + cacheMisses != 0L) {
+			source.sendFeedback(new LiteralText(String.format(
+					"Node type cache: %d hits, %d misses, %.0f%% hit rate",
+					cacheHits, cacheMisses, 100.0 * cacheHits / (cacheHits + cacheMisses)
+			)), false);
+		}
+
+		final long reusedPaths = PathReuseCache.getReusedPaths();
+
+		if (reusedPaths != 0L) {
+			source.sendFeedback(new LiteralText("Reused paths: " + reusedPaths), false);
+		}
+
+		final List<PathfindingStatistics.Entry> entries =
+				PathfindingStatistics.getWorstOffenders();
+
+		if (entries.isEmpty()) {
+			source.sendFeedback(new LiteralText("No path searches have been recorded"), false);
+			return Command.SINGLE_SUCCESS;
+		}
+
+		final double minutes = PathfindingStatistics.getElapsedNanos() / NANOS_PER_MINUTE;
+
+		for (PathfindingStatistics.Entry entry : entries.subList(
+				0, Math.min(MAX_ENTRIES, entries.size())
+		)) {
+			final long searches = entry.getSearches();
+			source.sendFeedback(new LiteralText(String.format(
+					"%s: %.1f ms/min, %d searches, %.0f%% found, %.1f nodes/search, " +
+							"%.1f node types/search, %.1f cache hits/search",
+					EntityType.getId(entry.getType()), entry.getNanos() / 1.0E6 / minutes,
+					searches, 100.0 * entry.getPathsFound() / searches,
+					(double) entry.getNodesExplored() / searches,
+					(double) entry.getNodeTypeCalls() / searches,
+					(double) entry.getCacheHits() / searches
+			)), false);
+		}
+
+		return Command.SINGLE_SUCCESS;
+	}
+
+	private static int reset(ServerCommandSource source) {
+		PathfindingStatistics.reset();
+		source.sendFeedback(new LiteralText("Pathfinding statistics have been reset"), true);
+		return Command.SINGLE_SUCCESS;
+	}
+}
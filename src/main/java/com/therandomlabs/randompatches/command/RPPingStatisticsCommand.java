@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.command;
+
+import java.util.List;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.network.PingStatistics;
+import com.therandomlabs.randompatches.network.PingStatisticsAccessor;
+import net.minecraft.command.argument.EntityArgumentType;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.LiteralText;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The command that displays the round-trip time statistics derived from KeepAlive responses.
+ */
+public final class RPPingStatisticsCommand {
+	private RPPingStatisticsCommand() {}
+
+	/**
+	 * Registers the command that displays ping statistics.
+	 *
+	 * @param dispatcher the {@link CommandDispatcher}.
+	 */
+	public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+		final String name = RandomPatches.config().misc.pingStatisticsCommand;
+
+		//Ping statistics are recorded by ServerPlayNetworkHandlerKeepAliveMixin.
+		if (!name.isEmpty() && !RandomPatches.config().misc.mixinBlacklist.contains(
+				"ServerPlayNetworkHandlerKeepAlive"
+		)) {
+			dispatcher.register(
+					LiteralArgumentBuilder.<ServerCommandSource>literal(name).
+							requires(source -> source.hasPermissionLevel(2)).
+							executes(context -> execute(context.getSource())).
+							then(CommandManager.argument("player", EntityArgumentType.player()).
+									executes(context -> execute(
+											context.getSource(),
+											EntityArgumentType.getPlayer(context, "player")
+									))
+							)
+			);
+		}
+	}
+
+	private static int execute(ServerCommandSource source) {
+		sendStatistics(source, "All players", PingStatistics.global());
+
+		final List<ServerPlayerEntity> players =
+				source.getMinecraftServer().getPlayerManager().getPlayerList();
+
+		for (ServerPlayerEntity player : players) {
+			final PingStatistics statistics = getStatistics(player);
+
+			if (statistics == null) {
+				continue;
+			}
+
+			source.sendFeedback(new LiteralText(String.format(
+					"%s: %.1f ms ± %.1f ms, KeepAlive every %d s",
+					player.getEntityName(), statistics.getAverageRTT(), statistics.getJitter(),
+					statistics.getKeepAliveIntervalMillis() / 1000L
+			)), false);
+		}
+
+		return Command.SINGLE_SUCCESS;
+	}
+
+	private static int execute(ServerCommandSource source, ServerPlayerEntity player) {
+		final PingStatistics statistics = getStatistics(player);
+
+		if (statistics == null) {
+			source.sendError(new LiteralText(
+					"No ping statistics are available for " + player.getEntityName()
+			));
+			return 0;
+		}
+
+		sendStatistics(source, player.getEntityName(), statistics);
+		source.sendFeedback(new LiteralText(String.format(
+				"Average: %.1f ms, jitter: %.1f ms, KeepAlive every %d s",
+				statistics.getAverageRTT(), statistics.getJitter(),
+				statistics.getKeepAliveIntervalMillis() / 1000L
+		)), false);
+
+		return Command.SINGLE_SUCCESS;
+	}
+
+	private static void sendStatistics(
+			ServerCommandSource source, String name, PingStatistics statistics
+	) {
+		source.sendFeedback(new LiteralText(String.format(
+				"%s: %d samples, mean %.1f ms, p50 <= %d ms, p95 <= %d ms, p99 <= %d ms, " +
+						"max %d ms",
+				name, statistics.getSamples(), statistics.getMeanRTT(),
+				statistics.getPercentile(0.5), statistics.getPercentile(0.95),
+				statistics.getPercentile(0.99), statistics.getMaxRTT()
+		)), false);
+	}
+
+	@Nullable
+	private static PingStatistics getStatistics(ServerPlayerEntity player) {
+		return player.networkHandler instanceof PingStatisticsAccessor ?
+				((PingStatisticsAccessor) player.networkHandler).getPingStatistics() : null;
+	}
+}
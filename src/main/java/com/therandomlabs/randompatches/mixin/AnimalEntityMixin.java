@@ -23,7 +23,9 @@
 
 package com.therandomlabs.randompatches.mixin;
 
+import com.therandomlabs.randompatches.RPConfig;
 import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.world.ParticleBatcherAccessor;
 import net.minecraft.entity.passive.AnimalEntity;
 import net.minecraft.particle.ParticleEffect;
 import net.minecraft.server.world.ServerWorld;
@@ -43,13 +45,19 @@ public final class AnimalEntityMixin {
 			World world, ParticleEffect effect, double x, double y, double z,
 			double xOffset, double yOffset, double zOffset
 	) {
-		if (!world.isClient && RandomPatches.config().misc.bugFixes.fixAnimalBreedingHearts) {
+		final RPConfig.MiscBugFixes config = RandomPatches.config().misc.bugFixes;
+
+		if (world.isClient || !config.fixAnimalBreedingHearts) {
+			world.addParticle(effect, x, y, z, xOffset, yOffset, zOffset);
+		} else if (config.batchAnimalBreedingHearts && world instanceof ParticleBatcherAccessor) {
+			((ParticleBatcherAccessor) world).getParticleBatcher().add(
+					effect, x, y, z, xOffset, yOffset, zOffset
+			);
+		} else {
 			//addParticle is not implemented in ServerWorld.
 			((ServerWorld) world).spawnParticles(
 					effect, x, y, z, 1, xOffset, yOffset, zOffset, 0.0
 			);
-		} else {
-			world.addParticle(effect, x, y, z, xOffset, yOffset, zOffset);
 		}
 	}
 }
@@ -24,11 +24,18 @@
 package com.therandomlabs.randompatches.mixin;
 
 import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.world.BlockChangeCounter;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.vehicle.BoatEntity;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Constant;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -37,13 +44,35 @@ import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(BoatEntity.class)
-public final class BoatEntityMixin {
+public abstract class BoatEntityMixin {
 	@Shadow
 	private BoatEntity.Location location;
 
 	@Shadow
 	private float ticksUnderwater;
 
+	@Shadow
+	private double waterLevel;
+
+	@Shadow
+	protected abstract BoatEntity.Location checkLocation();
+
+	@Unique
+	@Nullable
+	private Box cachedLocationBoundingBox;
+
+	@Unique
+	private BoatEntity.Location cachedLocation;
+
+	@Unique
+	private double cachedWaterLevel;
+
+	@Unique
+	private WorldChunk[] cachedLocationChunks = new WorldChunk[0];
+
+	@Unique
+	private int[] cachedLocationChunkBlockChanges = new int[0];
+
 	@Inject(method = "tick", at = @At("TAIL"))
 	private void tick(CallbackInfo info) {
 		if (location == BoatEntity.Location.UNDER_FLOWING_WATER) {
@@ -56,6 +85,68 @@ public final class BoatEntityMixin {
 		}
 	}
 
+	@Redirect(method = "tick", at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/entity/vehicle/BoatEntity;checkLocation()" +
+					"Lnet/minecraft/entity/vehicle/BoatEntity$Location;"
+	))
+	private BoatEntity.Location getLocation() {
+		final Entity entity = (Entity) (Object) this;
+		final World world = entity.world;
+
+		if (world.isClient || !RandomPatches.config().misc.cacheIdleBoatLocations) {
+			cachedLocationBoundingBox = null;
+			return checkLocation();
+		}
+
+		final Box box = entity.getBoundingBox();
+
+		//The location only depends on the bounding box and the blocks in and around it, so it
+		//can be reused until the boat moves or a block in the surrounding chunks changes.
+		if (box.equals(cachedLocationBoundingBox) && areCachedLocationChunksUnchanged(world)) {
+			waterLevel = cachedWaterLevel;
+			return cachedLocation;
+		}
+
+		cachedLocationBoundingBox = null;
+		final BoatEntity.Location location = checkLocation();
+
+		//Block changes are counted per chunk, so only the chunks containing the blocks that are
+		//sampled by checkLocation are recorded.
+		final int minChunkX = (MathHelper.floor(box.minX) - 1) >> 4;
+		final int maxChunkX = (MathHelper.ceil(box.maxX) + 1) >> 4;
+		final int minChunkZ = (MathHelper.floor(box.minZ) - 1) >> 4;
+		final int maxChunkZ = (MathHelper.ceil(box.maxZ) + 1) >> 4;
+		final int chunks = (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+
+		if (cachedLocationChunks.length != chunks) {
+			cachedLocationChunks = new WorldChunk[chunks];
+			cachedLocationChunkBlockChanges = new int[chunks];
+		}
+
+		int index = 0;
+
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+				final WorldChunk chunk =
+						world.getChunkManager().getWorldChunk(chunkX, chunkZ, false);
+
+				if (chunk == null) {
+					return location;
+				}
+
+				cachedLocationChunks[index] = chunk;
+				cachedLocationChunkBlockChanges[index++] =
+						((BlockChangeCounter) chunk).getBlockChanges();
+			}
+		}
+
+		cachedLocationBoundingBox = box;
+		cachedLocation = location;
+		cachedWaterLevel = waterLevel;
+		return location;
+	}
+
 	@ModifyConstant(
 			method = {"tick", "interact"}, constant = @Constant(floatValue = 60.0F)
 	)
@@ -73,4 +164,20 @@ public final class BoatEntityMixin {
 		return RandomPatches.config().misc.bugFixes.fixBoatFallDamage ?
 				BoatEntity.Location.ON_LAND : location;
 	}
+
+	@Unique
+	private boolean areCachedLocationChunksUnchanged(World world) {
+		for (int i = 0; i < cachedLocationChunks.length; i++) {
+			final WorldChunk chunk = cachedLocationChunks[i];
+
+			//The chunk may have been unloaded and reloaded as a different object.
+			if (world.getChunkManager().getWorldChunk(chunk.getPos().x, chunk.getPos().z, false) !=
+					chunk || ((BlockChangeCounter) chunk).getBlockChanges() !=
+					cachedLocationChunkBlockChanges[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
 }
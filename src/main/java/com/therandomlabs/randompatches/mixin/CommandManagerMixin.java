@@ -25,6 +25,10 @@ package com.therandomlabs.randompatches.mixin;
 
 import com.mojang.brigadier.CommandDispatcher;
 import com.therandomlabs.randompatches.command.RPConfigReloadCommand;
+import com.therandomlabs.randompatches.command.RPLoginStatisticsCommand;
+import com.therandomlabs.randompatches.command.RPNetworkStatisticsCommand;
+import com.therandomlabs.randompatches.command.RPPathfindingStatisticsCommand;
+import com.therandomlabs.randompatches.command.RPPingStatisticsCommand;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import org.spongepowered.asm.mixin.Final;
@@ -49,5 +53,9 @@ public final class CommandManagerMixin {
 			CommandManager.RegistrationEnvironment environment, CallbackInfo info
 	) {
 		RPConfigReloadCommand.register(dispatcher);
+		RPPingStatisticsCommand.register(dispatcher);
+		RPLoginStatisticsCommand.register(dispatcher);
+		RPNetworkStatisticsCommand.register(dispatcher);
+		RPPathfindingStatisticsCommand.register(dispatcher);
 	}
 }
@@ -24,6 +24,8 @@
 package com.therandomlabs.randompatches.mixin;
 
 import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.world.RainExposureCache;
+import com.therandomlabs.randompatches.world.RainExposureCacheAccessor;
 import net.fabricmc.fabric.api.util.NbtType;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
@@ -75,6 +77,20 @@ public abstract class EntityMixin {
 		}
 	}
 
+	@Inject(method = "isBeingRainedOn", at = @At("HEAD"), cancellable = true)
+	private void isBeingRainedOn(CallbackInfoReturnable<Boolean> info) {
+		//The World mixin may be blacklisted.
+		if (RandomPatches.config().misc.cacheRainExposure &&
+				world instanceof RainExposureCacheAccessor) {
+			final BlockPos pos = getBlockPos();
+			final RainExposureCache cache =
+					((RainExposureCacheAccessor) world).getRainExposureCache();
+			info.setReturnValue(cache.hasRain(world, pos) || cache.hasRain(
+					world, new BlockPos(pos.getX(), getBoundingBox().maxY, pos.getZ())
+			));
+		}
+	}
+
 	@Inject(method = "toTag", at = @At(
 			value = "INVOKE",
 			target = "Lnet/minecraft/entity/Entity;getVelocity()Lnet/minecraft/util/math/Vec3d;"
@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import java.util.Set;
+
+import com.therandomlabs.randompatches.world.AsyncPathfinding;
+import com.therandomlabs.randompatches.world.PathReuseCache;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.ai.pathing.EntityNavigation;
+import net.minecraft.entity.ai.pathing.Path;
+import net.minecraft.entity.ai.pathing.PathNodeMaker;
+import net.minecraft.entity.ai.pathing.PathNodeNavigator;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkCache;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(EntityNavigation.class)
+public abstract class EntityNavigationMixin {
+	@Shadow
+	@Final
+	protected MobEntity entity;
+
+	@Shadow
+	@Final
+	protected World world;
+
+	@Unique
+	@Nullable
+	private AsyncPathfinding.Request pathRequest;
+
+	//The speed at which the mob should move along the path found by pathRequest, or NaN if
+	//the path should not be applied when the search completes.
+	@Unique
+	private double pathRequestSpeed = Double.NaN;
+
+	@Shadow
+	public abstract boolean startMovingAlong(@Nullable Path path, double speed);
+
+	@Inject(method = "tick", at = @At("HEAD"))
+	private void applyFoundPath(CallbackInfo info) {
+		final AsyncPathfinding.Request request = pathRequest;
+
+		if (request == null || Double.isNaN(pathRequestSpeed) || !request.isDone()) {
+			return;
+		}
+
+		final double speed = pathRequestSpeed;
+		pathRequest = null;
+		pathRequestSpeed = Double.NaN;
+
+		final Path path = request.getPath();
+
+		if (path != null && !request.isStale(entity, world)) {
+			startMovingAlong(path, speed);
+		}
+	}
+
+	@Inject(method = "startMovingTo(Lnet/minecraft/entity/Entity;D)Z", at = @At("RETURN"))
+	private void onStartMovingToEntity(
+			Entity target, double speed, CallbackInfoReturnable<Boolean> info
+	) {
+		//If no path was returned, startMovingAlong is not called.
+		if (!info.getReturnValueZ()) {
+			onPathRequested(speed);
+		}
+	}
+
+	@Inject(method = "startMovingAlong", at = @At("HEAD"))
+	private void onStartMovingAlong(
+			@Nullable Path path, double speed, CallbackInfoReturnable<Boolean> info
+	) {
+		if (path == null) {
+			onPathRequested(speed);
+		} else {
+			//The mob is now following another path, which should not be replaced.
+			pathRequestSpeed = Double.NaN;
+		}
+	}
+
+	@Inject(method = "stop", at = @At("HEAD"))
+	private void onStop(CallbackInfo info) {
+		pathRequestSpeed = Double.NaN;
+	}
+
+	@Nullable
+	@Redirect(
+			method = "findPathToAny(Ljava/util/Set;IZI)Lnet/minecraft/entity/ai/pathing/Path;",
+			at = @At(
+					value = "INVOKE",
+					target = "Lnet/minecraft/entity/ai/pathing/PathNodeNavigator;findPathToAny" +
+							"(Lnet/minecraft/world/chunk/ChunkCache;" +
+							"Lnet/minecraft/entity/mob/MobEntity;Ljava/util/Set;FIF)" +
+							"Lnet/minecraft/entity/ai/pathing/Path;"
+			)
+	)
+	private Path findPathToAny(
+			PathNodeNavigator navigator, ChunkCache chunkCache, MobEntity mob,
+			Set<BlockPos> positions, float followRange, int distance, float rangeMultiplier
+	) {
+		final PathReuseCache reuseCache = PathReuseCache.get(world);
+
+		if (reuseCache == null) {
+			return findPath(
+					navigator, chunkCache, mob, positions, followRange, distance,
+					rangeMultiplier
+			);
+		}
+
+		final PathNodeMaker nodeMaker = ((PathNodeNavigatorMixin) navigator).getPathNodeMaker();
+		final Path reusedPath = reuseCache.get(world, mob, nodeMaker, positions, distance);
+
+		if (reusedPath != null) {
+			pathRequest = null;
+			return reusedPath;
+		}
+
+		final Path path = findPath(
+				navigator, chunkCache, mob, positions, followRange, distance, rangeMultiplier
+		);
+
+		if (path != null) {
+			reuseCache.put(world, mob, nodeMaker, positions, distance, path);
+		}
+
+		return path;
+	}
+
+	@Unique
+	@Nullable
+	private Path findPath(
+			PathNodeNavigator navigator, ChunkCache chunkCache, MobEntity mob,
+			Set<BlockPos> positions, float followRange, int distance, float rangeMultiplier
+	) {
+		if (!AsyncPathfinding.isEnabled()) {
+			pathRequest = null;
+			return navigator.findPathToAny(
+					chunkCache, mob, positions, followRange, distance, rangeMultiplier
+			);
+		}
+
+		final AsyncPathfinding.Request request = pathRequest;
+
+		if (request != null && request.isFor(positions, distance)) {
+			//The found path is applied when the search completes if the mob is told to move
+			//along the returned path.
+			if (!request.isDone()) {
+				return null;
+			}
+
+			pathRequest = null;
+
+			if (!request.isStale(mob, world)) {
+				return request.getPath();
+			}
+		}
+
+		pathRequestSpeed = Double.NaN;
+		pathRequest = AsyncPathfinding.submit(
+				world, chunkCache, navigator, mob, positions, followRange, distance,
+				rangeMultiplier
+		);
+
+		//If the request could not be submitted, the path is found synchronously.
+		return pathRequest == null ? navigator.findPathToAny(
+				chunkCache, mob, positions, followRange, distance, rangeMultiplier
+		) : null;
+	}
+
+	@Unique
+	private void onPathRequested(double speed) {
+		if (pathRequest != null && !pathRequest.isDone()) {
+			pathRequestSpeed = speed;
+		}
+	}
+}
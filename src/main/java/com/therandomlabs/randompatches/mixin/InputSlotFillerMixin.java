@@ -24,15 +24,104 @@
 package com.therandomlabs.randompatches.mixin;
 
 import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.recipe.RecipeMatchCache;
+import com.therandomlabs.randompatches.recipe.RecipeMatchCacheAccessor;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.recipe.InputSlotFiller;
+import net.minecraft.recipe.Recipe;
+import net.minecraft.recipe.RecipeMatcher;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(InputSlotFiller.class)
 public final class InputSlotFillerMixin {
+	@Shadow
+	protected PlayerInventory inventory;
+
+	//Maps items to the inventory slots that contained them when the index was built, in
+	//ascending order. Stacks are only removed from the inventory while ingredients are moved
+	//into the crafting grid, so the first matching indexed slot is always the first matching
+	//slot in the inventory.
+	@Unique
+	private final Reference2ObjectOpenHashMap<Item, IntList> slotIndex =
+			new Reference2ObjectOpenHashMap<>();
+
+	@Unique
+	@Nullable
+	private PlayerInventory indexedInventory;
+
+	@Inject(
+			method = "fillInputSlots(Lnet/minecraft/server/network/ServerPlayerEntity;" +
+					"Lnet/minecraft/recipe/Recipe;Z)V",
+			at = @At("RETURN")
+	)
+	private void clearSlotIndexAfterFilling(CallbackInfo info) {
+		clearSlotIndex();
+	}
+
+	//Stacks in the crafting grid are returned to the inventory before ingredients are moved.
+	@Inject(method = "returnInputs", at = @At("HEAD"))
+	private void clearSlotIndexBeforeReturningInputs(CallbackInfo info) {
+		clearSlotIndex();
+	}
+
+	@Redirect(
+			method = "fillInputSlots(Lnet/minecraft/server/network/ServerPlayerEntity;" +
+					"Lnet/minecraft/recipe/Recipe;Z)V",
+			at = @At(
+					value = "INVOKE",
+					target = "Lnet/minecraft/recipe/RecipeMatcher;match" +
+							"(Lnet/minecraft/recipe/Recipe;Lit/unimi/dsi/fastutil/ints/IntList;)Z"
+			)
+	)
+	private boolean match(RecipeMatcher matcher, Recipe<?> recipe, @Nullable IntList output) {
+		final RecipeMatchCache cache = getRecipeMatchCache();
+		return cache == null ?
+				matcher.match(recipe, output) : cache.match(matcher, recipe, output, 1);
+	}
+
+	@Redirect(
+			method = "fillInputSlots(Lnet/minecraft/recipe/Recipe;Z)V",
+			at = @At(
+					value = "INVOKE",
+					target = "Lnet/minecraft/recipe/RecipeMatcher;match" +
+							"(Lnet/minecraft/recipe/Recipe;Lit/unimi/dsi/fastutil/ints/IntList;I)Z"
+			)
+	)
+	private boolean match(
+			RecipeMatcher matcher, Recipe<?> recipe, @Nullable IntList output, int multiplier
+	) {
+		final RecipeMatchCache cache = getRecipeMatchCache();
+		return cache == null ? matcher.match(recipe, output, multiplier) :
+				cache.match(matcher, recipe, output, multiplier);
+	}
+
+	@Redirect(
+			method = "fillInputSlots(Lnet/minecraft/recipe/Recipe;Z)V",
+			at = @At(
+					value = "INVOKE",
+					target = "Lnet/minecraft/recipe/RecipeMatcher;countCrafts" +
+							"(Lnet/minecraft/recipe/Recipe;Lit/unimi/dsi/fastutil/ints/IntList;)I"
+			)
+	)
+	private int countCrafts(RecipeMatcher matcher, Recipe<?> recipe, @Nullable IntList output) {
+		final RecipeMatchCache cache = getRecipeMatchCache();
+		return cache == null || output != null ?
+				matcher.countCrafts(recipe, output) : cache.countCrafts(matcher, recipe);
+	}
+
 	@Redirect(
 			method = "fillInputSlot",
 			at = @At(
@@ -42,30 +131,63 @@ public final class InputSlotFillerMixin {
 			)
 	)
 	private int getSlotWithUnusedStack(PlayerInventory inventory, ItemStack stack) {
-		if (RandomPatches.config().misc.bugFixes.fixRecipeBookNotMovingIngredientsWithTags) {
-			for (int i = 0; i < inventory.main.size(); i++) {
-				final ItemStack toMatch = inventory.main.get(i);
-
-				if (!toMatch.isEmpty() && toMatch.getItem() == stack.getItem() &&
-						!toMatch.isDamaged() && !toMatch.hasEnchantments() &&
-						!toMatch.hasCustomName()) {
-					return i;
-				}
-			}
+		final IntList slots = getIndexedSlots(inventory, stack.getItem());
 
+		if (slots == null) {
 			return -1;
 		}
 
-		for (int i = 0; i < inventory.main.size(); i++) {
-			final ItemStack toMatch = inventory.main.get(i);
+		final boolean ignoreTags =
+				RandomPatches.config().misc.bugFixes.fixRecipeBookNotMovingIngredientsWithTags;
+
+		for (int i = 0; i < slots.size(); i++) {
+			final int slot = slots.getInt(i);
+			final ItemStack toMatch = inventory.main.get(slot);
 
 			if (!toMatch.isEmpty() && toMatch.getItem() == stack.getItem() &&
-					ItemStack.areTagsEqual(toMatch, stack) && !toMatch.isDamaged() &&
-					!toMatch.hasEnchantments() && !toMatch.hasCustomName()) {
-				return i;
+					(ignoreTags || ItemStack.areTagsEqual(toMatch, stack)) &&
+					!toMatch.isDamaged() && !toMatch.hasEnchantments() &&
+					!toMatch.hasCustomName()) {
+				return slot;
 			}
 		}
 
 		return -1;
 	}
+
+	@Unique
+	@Nullable
+	private IntList getIndexedSlots(PlayerInventory inventory, Item item) {
+		if (indexedInventory != inventory) {
+			clearSlotIndex();
+			indexedInventory = inventory;
+
+			for (int i = 0; i < inventory.main.size(); i++) {
+				final ItemStack stack = inventory.main.get(i);
+
+				if (!stack.isEmpty()) {
+					slotIndex.computeIfAbsent(stack.getItem(), key -> new IntArrayList()).add(i);
+				}
+			}
+		}
+
+		return slotIndex.get(item);
+	}
+
+	@Unique
+	@Nullable
+	private RecipeMatchCache getRecipeMatchCache() {
+		if (RandomPatches.config().misc.cacheRecipeBookMatches &&
+				inventory.player instanceof ServerPlayerEntity) {
+			return ((RecipeMatchCacheAccessor) inventory.player).getRecipeMatchCache();
+		}
+
+		return null;
+	}
+
+	@Unique
+	private void clearSlotIndex() {
+		slotIndex.clear();
+		indexedInventory = null;
+	}
 }
@@ -24,17 +24,44 @@
 package com.therandomlabs.randompatches.mixin;
 
 import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.world.NodeTypeCallCounter;
 import net.minecraft.entity.ai.pathing.LandPathNodeMaker;
 import net.minecraft.entity.ai.pathing.PathNodeType;
 import net.minecraft.entity.mob.MobEntity;
 import net.minecraft.world.BlockView;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(LandPathNodeMaker.class)
-public final class LandPathNodeMakerMixin {
+public final class LandPathNodeMakerMixin implements NodeTypeCallCounter {
+	@Unique
+	private int nodeTypeCalls;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getNodeTypeCalls() {
+		return nodeTypeCalls;
+	}
+
+	@Inject(
+			method = "getNodeType(Lnet/minecraft/world/BlockView;" +
+					"IIILnet/minecraft/entity/mob/MobEntity;IIIZZ)" +
+					"Lnet/minecraft/entity/ai/pathing/PathNodeType;",
+			at = @At("HEAD")
+	)
+	private void countNodeTypeCall(
+			BlockView world, int x, int y, int z, MobEntity mob, int sizeX, int sizeY, int sizeZ,
+			boolean canOpenDoors, boolean canEnterOpenDoors,
+			CallbackInfoReturnable<PathNodeType> info
+	) {
+		nodeTypeCalls++;
+	}
+
 	@Inject(
 			method = "getNodeType(Lnet/minecraft/world/BlockView;" +
 					"IIILnet/minecraft/entity/mob/MobEntity;IIIZZ)" +
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import com.therandomlabs.randompatches.world.PathNodeTypeCache;
+import net.minecraft.entity.ai.pathing.LandPathNodeMaker;
+import net.minecraft.entity.ai.pathing.PathNodeType;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(LandPathNodeMaker.class)
+public final class LandPathNodeMakerNodeTypeCacheMixin {
+	//The cache in which the node type being computed should be stored, and the position of the
+	//node type. Paths may be searched for on multiple threads, so these are thread-local.
+	@Unique
+	private static final ThreadLocal<PathNodeTypeCache> pendingCache = new ThreadLocal<>();
+
+	@Unique
+	private static final ThreadLocal<BlockPos.Mutable> pendingPos =
+			ThreadLocal.withInitial(BlockPos.Mutable::new);
+
+	@Inject(method = "getLandNodeType", at = @At("HEAD"), cancellable = true)
+	private static void getCachedLandNodeType(
+			BlockView world, BlockPos.Mutable pos, CallbackInfoReturnable<PathNodeType> info
+	) {
+		final int x = pos.getX();
+		final int y = pos.getY();
+		final int z = pos.getZ();
+		final PathNodeTypeCache cache = PathNodeTypeCache.get(world, x, y, z);
+		pendingCache.remove();
+
+		if (cache == null) {
+			return;
+		}
+
+		final PathNodeType type = cache.get(x, y, z);
+
+		if (type == null) {
+			pendingCache.set(cache);
+			pendingPos.get().set(x, y, z);
+		} else {
+			info.setReturnValue(type);
+		}
+	}
+
+	@Inject(method = "getLandNodeType", at = @At("RETURN"))
+	private static void cacheLandNodeType(
+			BlockView world, BlockPos.Mutable pos, CallbackInfoReturnable<PathNodeType> info
+	) {
+		final PathNodeTypeCache cache = pendingCache.get();
+
+		if (cache == null) {
+			return;
+		}
+
+		final BlockPos.Mutable cachePos = pendingPos.get();
+		final int x = cachePos.getX();
+		final int y = cachePos.getY();
+		final int z = cachePos.getZ();
+
+		//The cache is looked up again to ensure that this is the server thread.
+		if (PathNodeTypeCache.get(world, x, y, z) == cache) {
+			cache.put(x, y, z, info.getReturnValue());
+		}
+
+		pendingCache.remove();
+	}
+}
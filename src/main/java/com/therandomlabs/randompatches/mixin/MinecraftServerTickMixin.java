@@ -0,0 +1,60 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import java.util.function.BooleanSupplier;
+
+import com.therandomlabs.randompatches.network.FlushCoalescingHandler;
+import com.therandomlabs.randompatches.world.IncrementalAutosaveScheduler;
+import net.minecraft.server.MinecraftServer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(MinecraftServer.class)
+public final class MinecraftServerTickMixin {
+	@Inject(method = "tick", at = @At("TAIL"))
+	private void tick(BooleanSupplier shouldKeepTicking, CallbackInfo info) {
+		FlushCoalescingHandler.onServerTick();
+	}
+
+	@Redirect(method = "tick", at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/server/MinecraftServer;save(ZZZ)Z"
+	))
+	private boolean autosave(
+			MinecraftServer server, boolean suppressLogs, boolean flush, boolean force
+	) {
+		//Only autosaves are spread across ticks, not saves requested by commands.
+		IncrementalAutosaveScheduler.setAutosaving(true);
+
+		try {
+			return server.save(suppressLogs, flush, force);
+		} finally {
+			IncrementalAutosaveScheduler.setAutosaving(false);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.world.NodeTypeCallCounter;
+import com.therandomlabs.randompatches.world.PathNodeTypeCache;
+import com.therandomlabs.randompatches.world.PathfindingSnapshot;
+import com.therandomlabs.randompatches.world.PathfindingStatistics;
+import net.minecraft.entity.ai.pathing.Path;
+import net.minecraft.entity.ai.pathing.PathNode;
+import net.minecraft.entity.ai.pathing.PathNodeMaker;
+import net.minecraft.entity.ai.pathing.PathNodeNavigator;
+import net.minecraft.entity.ai.pathing.TargetPathNode;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.ChunkCache;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(PathNodeNavigator.class)
+public final class PathNodeNavigatorInstrumentationMixin {
+	@Shadow
+	@Final
+	private PathNodeMaker pathNodeMaker;
+
+	//A navigator is only used by one thread at a time.
+	@Unique
+	private long searchStartTime;
+
+	@Unique
+	private int nodesExplored;
+
+	@Unique
+	private int nodeTypeCallsAtStart;
+
+	@Unique
+	private long cacheHitsAtStart;
+
+	@Inject(method = "findPathToAny(Lnet/minecraft/world/chunk/ChunkCache;" +
+			"Lnet/minecraft/entity/mob/MobEntity;Ljava/util/Set;FIF)" +
+			"Lnet/minecraft/entity/ai/pathing/Path;", at = @At("HEAD"))
+	private void onSearchStart(
+			ChunkCache world, MobEntity mob, Set<BlockPos> positions, float followRange,
+			int distance, float rangeMultiplier, CallbackInfoReturnable<Path> info
+	) {
+		if (!RandomPatches.config().pathfinding.recordStatistics) {
+			searchStartTime = 0L;
+			return;
+		}
+
+		nodesExplored = 0;
+		nodeTypeCallsAtStart = getNodeTypeCalls();
+		cacheHitsAtStart = PathNodeTypeCache.getHits();
+		searchStartTime = System.nanoTime();
+	}
+
+	@Inject(method = "findPathToAny(Lnet/minecraft/world/chunk/ChunkCache;" +
+			"Lnet/minecraft/entity/mob/MobEntity;Ljava/util/Set;FIF)" +
+			"Lnet/minecraft/entity/ai/pathing/Path;", at = @At("RETURN"))
+	private void onSearchEnd(
+			ChunkCache world, MobEntity mob, Set<BlockPos> positions, float followRange,
+			int distance, float rangeMultiplier, CallbackInfoReturnable<Path> info
+	) {
+		if (searchStartTime == 0L) {
+			return;
+		}
+
+		final long nanos = System.nanoTime() - searchStartTime;
+		final Path path = info.getReturnValue();
+
+		//The node type cache is not used by asynchronous searches, and its hit counter is only
+		//updated on the server thread.
+		final long cacheHits = world instanceof PathfindingSnapshot ?
+				0L : PathNodeTypeCache.getHits() - cacheHitsAtStart;
+
+		PathfindingStatistics.record(
+				mob.getType(), nanos, path != null && path.reachesTarget(), nodesExplored,
+				getNodeTypeCalls() - nodeTypeCallsAtStart, cacheHits
+		);
+		searchStartTime = 0L;
+	}
+
+	@Inject(method = "findPathToAny(Lnet/minecraft/entity/ai/pathing/PathNode;Ljava/util/Map;" +
+			"FIF)Lnet/minecraft/entity/ai/pathing/Path;", at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/entity/ai/pathing/PathMinHeap;pop()" +
+					"Lnet/minecraft/entity/ai/pathing/PathNode;"
+	))
+	private void onNodeExplored(
+			PathNode startNode, Map<TargetPathNode, BlockPos> positions, float followRange,
+			int distance, float rangeMultiplier, CallbackInfoReturnable<Path> info
+	) {
+		nodesExplored++;
+	}
+
+	@Unique
+	private int getNodeTypeCalls() {
+		return pathNodeMaker instanceof NodeTypeCallCounter ?
+				((NodeTypeCallCounter) pathNodeMaker).getNodeTypeCalls() : 0;
+	}
+}
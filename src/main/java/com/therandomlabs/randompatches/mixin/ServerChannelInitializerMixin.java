@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import com.therandomlabs.randompatches.RPConfig;
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.network.BackpressureHandler;
+import com.therandomlabs.randompatches.network.FlushCoalescingHandler;
+import com.therandomlabs.randompatches.network.NetworkTransportHandler;
+import io.netty.channel.Channel;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(targets = "net/minecraft/server/ServerNetworkIo$1")
+public final class ServerChannelInitializerMixin {
+	@Inject(method = "initChannel(Lio/netty/channel/Channel;)V", at = @At("TAIL"))
+	private void initChannel(Channel channel, CallbackInfo info) {
+		NetworkTransportHandler.configureChannel(channel);
+
+		final RPConfig.Network config = RandomPatches.config().network;
+
+		if (config.dropPacketsUnderBackpressure || config.maxPendingBytesPerConnection != 0) {
+			channel.pipeline().addLast(BackpressureHandler.NAME, new BackpressureHandler(
+					config.dropPacketsUnderBackpressure, config.maxPendingBytesPerConnection
+			));
+		}
+
+		if (config.coalesceFlushes) {
+			channel.pipeline().addLast(
+					FlushCoalescingHandler.NAME,
+					new FlushCoalescingHandler(config.coalescedFlushThresholdBytes)
+			);
+		}
+	}
+}
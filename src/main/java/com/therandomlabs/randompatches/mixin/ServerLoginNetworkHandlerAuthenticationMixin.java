@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import com.therandomlabs.randompatches.network.LoginAuthenticationPool;
+import com.therandomlabs.randompatches.network.LoginStatistics;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerLoginNetworkHandler;
+import net.minecraft.text.LiteralText;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerLoginNetworkHandler.class)
+public final class ServerLoginNetworkHandlerAuthenticationMixin {
+	@Shadow
+	@Final
+	public ClientConnection connection;
+
+	@Shadow
+	@Final
+	private MinecraftServer server;
+
+	@Shadow
+	private int loginTicks;
+
+	@Unique
+	private volatile long authenticatedTime;
+
+	@Unique
+	private long acceptStartTime;
+
+	@Redirect(method = "onKey", at = @At(value = "INVOKE", target = "java/lang/Thread.start()V"))
+	private void startAuthenticator(Thread authenticator) {
+		if (!LoginAuthenticationPool.isEnabled()) {
+			authenticator.start();
+			return;
+		}
+
+		//The authenticator thread is never started; its run method is called by the pool instead.
+		final boolean queued = LoginAuthenticationPool.submit(getAddress(), () -> {
+			final long startTime = System.nanoTime();
+			authenticator.run();
+			authenticatedTime = System.nanoTime();
+			LoginStatistics.record(
+					LoginStatistics.Stage.AUTHENTICATION, authenticatedTime - startTime
+			);
+		});
+
+		if (!queued) {
+			((ServerLoginNetworkHandler) (Object) this).disconnect(new LiteralText(
+					"The server is busy processing other logins. Please try again later."
+			));
+		}
+	}
+
+	@Redirect(method = "tick", at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/server/network/ServerLoginNetworkHandler;acceptPlayer()V"
+	))
+	private void acceptPlayer(ServerLoginNetworkHandler handler) {
+		//If the player is not accepted, the handler stays ready to accept and is retried on the
+		//next tick.
+		if (LoginAuthenticationPool.tryAccept(server.getTicks())) {
+			handler.acceptPlayer();
+		} else {
+			//Ticks spent waiting to be accepted do not count towards the slow login timeout,
+			//since loginTicks is incremented after this call.
+			loginTicks--;
+		}
+	}
+
+	@Inject(method = "acceptPlayer", at = @At("HEAD"))
+	private void onAcceptPlayerStart(CallbackInfo info) {
+		acceptStartTime = System.nanoTime();
+
+		if (authenticatedTime != 0L) {
+			LoginStatistics.record(
+					LoginStatistics.Stage.ACCEPT_WAIT, acceptStartTime - authenticatedTime
+			);
+			authenticatedTime = 0L;
+		}
+	}
+
+	@Inject(method = "acceptPlayer", at = @At("RETURN"))
+	private void onAcceptPlayerEnd(CallbackInfo info) {
+		LoginStatistics.record(
+				LoginStatistics.Stage.WORLD_JOIN, System.nanoTime() - acceptStartTime
+		);
+	}
+
+	@Unique
+	private String getAddress() {
+		final SocketAddress address = connection.getAddress();
+
+		if (address instanceof InetSocketAddress) {
+			return ((InetSocketAddress) address).getAddress().getHostAddress();
+		}
+
+		return String.valueOf(address);
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import com.therandomlabs.randompatches.network.NetworkTransportHandler;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.EventLoopGroup;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.ServerNetworkIo;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+@Mixin(ServerNetworkIo.class)
+public final class ServerNetworkIoMixin {
+	@Redirect(method = "bind", at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/server/MinecraftServer;isUsingNativeTransport()Z"
+	))
+	private boolean isUsingNativeTransport(MinecraftServer server) {
+		return NetworkTransportHandler.useNativeTransport(server.isUsingNativeTransport());
+	}
+
+	@Redirect(method = "bind", at = @At(
+			value = "INVOKE",
+			target = "Lio/netty/bootstrap/ServerBootstrap;group" +
+					"(Lio/netty/channel/EventLoopGroup;)Lio/netty/bootstrap/ServerBootstrap;"
+	))
+	private ServerBootstrap setEventLoopGroups(ServerBootstrap bootstrap, EventLoopGroup group) {
+		return NetworkTransportHandler.setEventLoopGroups(bootstrap, group);
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.network.MovePacketCoalescingAccessor;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.network.Packet;
+import net.minecraft.network.packet.c2s.play.PlayerMoveC2SPacket;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerPlayNetworkHandler.class)
+public final class ServerPlayNetworkHandlerMoveCoalescingMixin
+		implements MovePacketCoalescingAccessor {
+	@Shadow
+	@Final
+	private MinecraftServer server;
+
+	@Unique
+	private final Object moveLock = new Object();
+
+	//The most recently scheduled packet if it is a movement packet that has not been handled yet.
+	@Unique
+	@Nullable
+	private PlayerMoveC2SPacket pendingMovePacket;
+
+	//The number of packets that have been merged into each unhandled movement packet.
+	@Unique
+	private final Reference2IntMap<PlayerMoveC2SPacket> unhandledMerges =
+			new Reference2IntOpenHashMap<>();
+
+	//The number of packets merged into the movement packet that is being handled.
+	@Unique
+	private int handledMerges;
+
+	@Unique
+	private volatile long coalescedMovePackets;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onPacketScheduled(Packet<?> packet) {
+		synchronized (moveLock) {
+			pendingMovePacket =
+					packet instanceof PlayerMoveC2SPacket ? (PlayerMoveC2SPacket) packet : null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getCoalescedMovePackets() {
+		return coalescedMovePackets;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public float getSpeedLimitMultiplier() {
+		//The limit is compared to the square of the distance moved, which grows with the square
+		//of the number of packets that the movement was spread across.
+		final int packets = handledMerges + 1;
+		return packets * packets;
+	}
+
+	@Inject(method = "onPlayerMove", at = @At("HEAD"), cancellable = true)
+	private void onPlayerMove(PlayerMoveC2SPacket packet, CallbackInfo info) {
+		if (server.isOnThread()) {
+			synchronized (moveLock) {
+				if (pendingMovePacket == packet) {
+					pendingMovePacket = null;
+				}
+
+				//Merged packets are not added to movePacketsCount, since vanilla resets the
+				//per-packet distance multiplier to 1 if more than five packets are counted in a
+				//tick. Instead, the speed limits are scaled for this packet only.
+				handledMerges = unhandledMerges.removeInt(packet);
+			}
+
+			return;
+		}
+
+		if (!RandomPatches.config().playerSpeedLimits.coalesceMovePackets()) {
+			return;
+		}
+
+		synchronized (moveLock) {
+			//Packets are only merged if no other packet has been scheduled in between so that
+			//the order in which packets are handled is preserved.
+			if (pendingMovePacket != null) {
+				merge(pendingMovePacket, packet);
+				unhandledMerges.put(
+						pendingMovePacket, unhandledMerges.getInt(pendingMovePacket) + 1
+				);
+				coalescedMovePackets++;
+				info.cancel();
+			}
+		}
+	}
+
+	@Unique
+	private static void merge(PlayerMoveC2SPacket pending, PlayerMoveC2SPacket packet) {
+		final PlayerMoveC2SPacketMixin pendingAccessor = (PlayerMoveC2SPacketMixin) pending;
+		final PlayerMoveC2SPacketMixin packetAccessor = (PlayerMoveC2SPacketMixin) packet;
+
+		if (packetAccessor.getChangePosition()) {
+			pendingAccessor.setX(packet.getX(0.0));
+			pendingAccessor.setY(packet.getY(0.0));
+			pendingAccessor.setZ(packet.getZ(0.0));
+			pendingAccessor.setChangePosition(true);
+		}
+
+		if (packetAccessor.getChangeLook()) {
+			pendingAccessor.setYaw(packet.getYaw(0.0F));
+			pendingAccessor.setPitch(packet.getPitch(0.0F));
+			pendingAccessor.setChangeLook(true);
+		}
+
+		pendingAccessor.setOnGround(packet.isOnGround());
+	}
+}
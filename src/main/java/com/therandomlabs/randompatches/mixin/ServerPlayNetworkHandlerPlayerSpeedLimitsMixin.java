@@ -23,26 +23,94 @@
 
 package com.therandomlabs.randompatches.mixin;
 
+import com.therandomlabs.randompatches.RPConfig;
 import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.network.MovePacketCoalescingAccessor;
+import com.therandomlabs.randompatches.network.PlayerSpeedLimitsAccessor;
+import com.therandomlabs.randompatches.network.PlayerSpeedLimitsHandler;
 import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Constant;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.ModifyConstant;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(ServerPlayNetworkHandler.class)
-public final class ServerPlayNetworkHandlerPlayerSpeedLimitsMixin {
+public final class ServerPlayNetworkHandlerPlayerSpeedLimitsMixin
+		implements PlayerSpeedLimitsAccessor {
+	@Shadow
+	public ServerPlayerEntity player;
+
+	@Unique
+	private int speedLimitsGeneration = -1;
+
+	@Unique
+	private float defaultMaxPlayerSpeed;
+
+	@Unique
+	private float maxPlayerElytraSpeed;
+
+	@Unique
+	private double maxPlayerVehicleSpeed;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void updatePlayerSpeedLimits() {
+		final RPConfig.PlayerSpeedLimits config = RandomPatches.config().playerSpeedLimits;
+		speedLimitsGeneration = PlayerSpeedLimitsHandler.getGeneration();
+
+		if (config.trustedPlayerPermissionLevel != 0 &&
+				player.hasPermissionLevel(config.trustedPlayerPermissionLevel)) {
+			defaultMaxPlayerSpeed = config.trustedDefaultMaxSpeed;
+			maxPlayerElytraSpeed = config.trustedMaxElytraSpeed;
+			maxPlayerVehicleSpeed = config.trustedMaxVehicleSpeed;
+		} else {
+			defaultMaxPlayerSpeed = config.defaultMaxSpeed;
+			maxPlayerElytraSpeed = config.maxElytraSpeed;
+			maxPlayerVehicleSpeed = config.maxVehicleSpeed;
+		}
+	}
+
+	@Inject(method = "<init>", at = @At("RETURN"))
+	private void initialize(CallbackInfo info) {
+		updatePlayerSpeedLimits();
+	}
+
 	@ModifyConstant(method = "onPlayerMove", constant = @Constant(floatValue = 100.0F))
 	private float getDefaultMaxPlayerSpeed(float speed) {
-		return RandomPatches.config().playerSpeedLimits.defaultMaxSpeed;
+		ensureSpeedLimitsUpToDate();
+		return defaultMaxPlayerSpeed * getMergedMovePacketMultiplier();
 	}
 
 	@ModifyConstant(method = "onPlayerMove", constant = @Constant(floatValue = 300.0F))
 	private float getMaxPlayerElytraSpeed(float speed) {
-		return RandomPatches.config().playerSpeedLimits.maxElytraSpeed;
+		ensureSpeedLimitsUpToDate();
+		return maxPlayerElytraSpeed * getMergedMovePacketMultiplier();
 	}
 
 	@ModifyConstant(method = "onVehicleMove", constant = @Constant(doubleValue = 100.0))
 	private double getMaxPlayerVehicleSpeed(double speed) {
-		return RandomPatches.config().playerSpeedLimits.maxVehicleSpeed;
+		ensureSpeedLimitsUpToDate();
+		return maxPlayerVehicleSpeed;
+	}
+
+	@Unique
+	private float getMergedMovePacketMultiplier() {
+		final Object handler = this;
+		return handler instanceof MovePacketCoalescingAccessor ?
+				((MovePacketCoalescingAccessor) handler).getSpeedLimitMultiplier() : 1.0F;
+	}
+
+	@Unique
+	private void ensureSpeedLimitsUpToDate() {
+		if (speedLimitsGeneration != PlayerSpeedLimitsHandler.getGeneration()) {
+			updatePlayerSpeedLimits();
+		}
 	}
 }
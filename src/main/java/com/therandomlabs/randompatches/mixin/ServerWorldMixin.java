@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import java.util.function.BooleanSupplier;
+
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.world.ChunkSectionSnapshotCache;
+import com.therandomlabs.randompatches.world.ChunkSectionSnapshotCacheAccessor;
+import com.therandomlabs.randompatches.world.ParticleBatcher;
+import com.therandomlabs.randompatches.world.ParticleBatcherAccessor;
+import com.therandomlabs.randompatches.world.PathNodeTypeCache;
+import com.therandomlabs.randompatches.world.PathNodeTypeCacheAccessor;
+import com.therandomlabs.randompatches.world.PathReuseCache;
+import com.therandomlabs.randompatches.world.PathReuseCacheAccessor;
+import com.therandomlabs.randompatches.world.PathfindingStandIns;
+import com.therandomlabs.randompatches.world.PathfindingStandInsAccessor;
+import net.minecraft.server.world.ServerWorld;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerWorld.class)
+public final class ServerWorldMixin
+		implements PathNodeTypeCacheAccessor, ChunkSectionSnapshotCacheAccessor,
+		PathReuseCacheAccessor, ParticleBatcherAccessor, PathfindingStandInsAccessor {
+	@Unique
+	private final PathNodeTypeCache pathNodeTypeCache = new PathNodeTypeCache();
+
+	@Unique
+	private final ChunkSectionSnapshotCache chunkSectionSnapshotCache =
+			new ChunkSectionSnapshotCache();
+
+	@Unique
+	private final PathReuseCache pathReuseCache = new PathReuseCache();
+
+	@Unique
+	private final ParticleBatcher particleBatcher = new ParticleBatcher();
+
+	@Unique
+	private final PathfindingStandIns pathfindingStandIns = new PathfindingStandIns();
+
+	@Inject(method = "tick", at = @At("RETURN"))
+	private void tick(BooleanSupplier shouldKeepTicking, CallbackInfo info) {
+		particleBatcher.flush(
+				(ServerWorld) (Object) this,
+				RandomPatches.config().misc.bugFixes.animalBreedingHeartDistance
+		);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PathNodeTypeCache getPathNodeTypeCache() {
+		return pathNodeTypeCache;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ChunkSectionSnapshotCache getChunkSectionSnapshotCache() {
+		return chunkSectionSnapshotCache;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PathReuseCache getPathReuseCache() {
+		return pathReuseCache;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ParticleBatcher getParticleBatcher() {
+		return particleBatcher;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PathfindingStandIns getPathfindingStandIns() {
+		return pathfindingStandIns;
+	}
+}
@@ -23,25 +23,48 @@
 
 package com.therandomlabs.randompatches.mixin;
 
+import java.util.function.BooleanSupplier;
+
+import com.therandomlabs.randompatches.RPConfig;
+import com.therandomlabs.randompatches.RandomPatches;
 import com.therandomlabs.randompatches.world.DuplicateEntityUUIDFixHandler;
+import com.therandomlabs.randompatches.world.IncrementalAutosaveScheduler;
+import com.therandomlabs.randompatches.world.WorldSaveProgress;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
 import net.minecraft.server.world.ChunkHolder;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.server.world.ThreadedAnvilChunkStorage;
 import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ReadOnlyChunk;
 import net.minecraft.world.chunk.WorldChunk;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(ThreadedAnvilChunkStorage.class)
-public final class ThreadedAnvilChunkStorageMixin {
+public abstract class ThreadedAnvilChunkStorageMixin {
 	@Shadow
 	@Final
 	private ServerWorld world;
 
+	@Shadow
+	private volatile Long2ObjectLinkedOpenHashMap<ChunkHolder> chunkHolders;
+
+	@Unique
+	private final IncrementalAutosaveScheduler autosaveScheduler =
+			new IncrementalAutosaveScheduler();
+
+	@Shadow
+	protected abstract boolean save(Chunk chunk);
+
 	@SuppressWarnings("UnresolvedMixinReference")
 	@Inject(method = "method_17227", at = @At("TAIL"))
 	private void onChunkLoad(
@@ -49,4 +72,85 @@ public final class ThreadedAnvilChunkStorageMixin {
 	) {
 		DuplicateEntityUUIDFixHandler.onChunkLoad(world, (WorldChunk) info.getReturnValue());
 	}
+
+	@Inject(method = "save(Z)V", at = @At("HEAD"), cancellable = true)
+	private void save(boolean flush, CallbackInfo info) {
+		final RPConfig.ChunkStorage config = RandomPatches.config().chunkStorage;
+
+		if (flush && WorldSaveProgress.isTracking()) {
+			int dirtyChunks = 0;
+
+			for (ChunkHolder chunkHolder : chunkHolders.values()) {
+				//Vanilla only saves chunks that have been accessible since they were last saved.
+				if (!chunkHolder.method_20384()) {
+					continue;
+				}
+
+				final Chunk chunk = getSavableChunk(chunkHolder);
+
+				if (chunk != null && chunk.needsSaving()) {
+					dirtyChunks++;
+				}
+			}
+
+			WorldSaveProgress.addChunks(dirtyChunks);
+		}
+
+		if (flush || !config.incrementalAutosave || !IncrementalAutosaveScheduler.isAutosaving()) {
+			//All chunks are saved, so there is nothing left to save incrementally.
+			autosaveScheduler.clear();
+			return;
+		}
+
+		final LongList dirtyChunks = new LongArrayList();
+		final LongList otherChunks = new LongArrayList();
+
+		for (ChunkHolder chunkHolder : chunkHolders.values()) {
+			if (!chunkHolder.method_20384()) {
+				continue;
+			}
+
+			final Chunk chunk = getSavableChunk(chunkHolder);
+
+			if (chunk != null) {
+				final long pos = chunkHolder.getPos().toLong();
+				(chunk.needsSaving() ? dirtyChunks : otherChunks).add(pos);
+
+				//Vanilla updates whether a chunk is accessible when it is saved.
+				//Chunks that are queued are treated as saved.
+				chunkHolder.method_20385();
+			}
+		}
+
+		autosaveScheduler.schedule(
+				dirtyChunks, otherChunks, world.getTime(), config.incrementalAutosaveTicks
+		);
+		info.cancel();
+	}
+
+	@Inject(method = "tick(Ljava/util/function/BooleanSupplier;)V", at = @At("HEAD"))
+	private void tick(BooleanSupplier shouldKeepTicking, CallbackInfo info) {
+		if (world.savingDisabled) {
+			return;
+		}
+
+		autosaveScheduler.tick(pos -> {
+			final ChunkHolder chunkHolder = chunkHolders.get(pos);
+
+			if (chunkHolder != null) {
+				final Chunk chunk = getSavableChunk(chunkHolder);
+
+				if (chunk != null) {
+					save(chunk);
+				}
+			}
+		});
+	}
+
+	@Unique
+	@Nullable
+	private static Chunk getSavableChunk(ChunkHolder chunkHolder) {
+		final Chunk chunk = chunkHolder.getSavingFuture().getNow(null);
+		return chunk instanceof ReadOnlyChunk || chunk instanceof WorldChunk ? chunk : null;
+	}
 }
@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin;
+
+import com.therandomlabs.randompatches.world.BlockChangeCounter;
+import com.therandomlabs.randompatches.world.ChunkSectionSnapshotCacheAccessor;
+import com.therandomlabs.randompatches.world.PathNodeTypeCacheAccessor;
+import com.therandomlabs.randompatches.world.PathReuseCacheAccessor;
+import com.therandomlabs.randompatches.world.RainExposureCacheAccessor;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(WorldChunk.class)
+public final class WorldChunkMixin implements BlockChangeCounter {
+	@Shadow
+	@Final
+	private World world;
+
+	@Shadow
+	@Final
+	private ChunkPos pos;
+
+	@Unique
+	private int blockChanges;
+
+	@Inject(method = "setBlockState", at = @At("RETURN"))
+	private void onBlockChanged(
+			BlockPos pos, BlockState state, boolean moved,
+			CallbackInfoReturnable<BlockState> info
+	) {
+		//null is returned if the block state has not changed.
+		if (info.getReturnValue() == null) {
+			return;
+		}
+
+		blockChanges++;
+
+		//The world mixins may be blacklisted.
+		if (world instanceof RainExposureCacheAccessor) {
+			((RainExposureCacheAccessor) world).getRainExposureCache().onBlockChanged(pos);
+		}
+
+		if (!isServerThread()) {
+			return;
+		}
+
+		if (world instanceof PathNodeTypeCacheAccessor) {
+			((PathNodeTypeCacheAccessor) world).getPathNodeTypeCache().onBlockChanged(pos);
+		}
+
+		if (world instanceof ChunkSectionSnapshotCacheAccessor) {
+			((ChunkSectionSnapshotCacheAccessor) world).getChunkSectionSnapshotCache().
+					onBlockChanged(pos);
+		}
+
+		if (world instanceof PathReuseCacheAccessor) {
+			((PathReuseCacheAccessor) world).getPathReuseCache().onBlockChanged(pos);
+		}
+	}
+
+	@Inject(method = "setLoadedToWorld", at = @At("HEAD"))
+	private void setLoadedToWorld(boolean loaded, CallbackInfo info) {
+		if (!isServerThread()) {
+			return;
+		}
+
+		if (world instanceof PathNodeTypeCacheAccessor) {
+			((PathNodeTypeCacheAccessor) world).getPathNodeTypeCache().
+					onChunkLoadedOrUnloaded(pos.x, pos.z);
+		}
+
+		if (world instanceof ChunkSectionSnapshotCacheAccessor) {
+			((ChunkSectionSnapshotCacheAccessor) world).getChunkSectionSnapshotCache().
+					onChunkLoadedOrUnloaded(pos.x, pos.z);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getBlockChanges() {
+		return blockChanges;
+	}
+
+	@Unique
+	private boolean isServerThread() {
+		return world instanceof ServerWorld && ((ServerWorld) world).getServer().isOnThread();
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin.chunkstorage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.therandomlabs.randompatches.world.MappedRegionFiles;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.storage.ChunkStreamVersion;
+import net.minecraft.world.storage.RegionFile;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(RegionFile.class)
+public abstract class RegionFileMemoryMappingMixin {
+	@Unique
+	private static final int SECTOR_SIZE = 4096;
+
+	//The length of the chunk data and the compression type byte.
+	@Unique
+	private static final int HEADER_SIZE = 5;
+
+	//Set in the compression type byte of chunks that are stored in separate files.
+	@Unique
+	private static final int EXTERNAL_CHUNK_FLAG = 128;
+
+	@Shadow
+	@Final
+	private FileChannel channel;
+
+	@Shadow
+	protected abstract int getSectorData(ChunkPos pos);
+
+	@Inject(method = "getChunkInputStream", at = @At("HEAD"), cancellable = true)
+	private void getChunkInputStream(
+			ChunkPos pos, CallbackInfoReturnable<DataInputStream> info
+	) throws IOException {
+		if (!MappedRegionFiles.isEnabled()) {
+			return;
+		}
+
+		final int sectorData = getSectorData(pos);
+
+		//Missing chunks are handled by the vanilla code.
+		if (sectorData == 0) {
+			return;
+		}
+
+		final long offset = (long) (sectorData >> 8 & 0xFFFFFF) * SECTOR_SIZE;
+		final int size = (sectorData & 0xFF) * SECTOR_SIZE;
+
+		if (offset + size > Integer.MAX_VALUE) {
+			return;
+		}
+
+		final MappedRegionFiles.Range range = MappedRegionFiles.read(
+				(RegionFile) (Object) this, channel, (int) offset, size
+		);
+
+		if (range == null) {
+			return;
+		}
+
+		final ByteBuffer buffer = range.getBuffer();
+
+		//External chunks, corrupt chunks and unknown compression types are handled by the
+		//vanilla code, which also logs the appropriate errors.
+		if (buffer.remaining() < HEADER_SIZE) {
+			range.close();
+			return;
+		}
+
+		final int length = buffer.getInt() - 1;
+		final byte type = buffer.get();
+
+		if (length < 0 || length > buffer.remaining() || (type & EXTERNAL_CHUNK_FLAG) != 0 ||
+				!ChunkStreamVersion.exists(type)) {
+			range.close();
+			return;
+		}
+
+		buffer.limit(buffer.position() + length);
+
+		//The range is closed when the returned stream is closed, which allows the region file
+		//to be unmapped.
+		try {
+			info.setReturnValue(new DataInputStream(new BufferedInputStream(
+					ChunkStreamVersion.get(type).wrap(range.toInputStream())
+			)));
+		} catch (IOException | RuntimeException ex) {
+			range.close();
+			throw ex;
+		}
+	}
+
+	@Inject(method = "close", at = @At("HEAD"))
+	private void close(CallbackInfo info) {
+		MappedRegionFiles.onClose((RegionFile) (Object) this);
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin.chunkstorage;
+
+import java.io.IOException;
+
+import com.therandomlabs.randompatches.world.ChunkCompressor;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.storage.RegionBasedStorage;
+import net.minecraft.world.storage.StorageIoWorker;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+@Mixin(StorageIoWorker.class)
+public final class StorageIoWorkerMixin {
+	@Redirect(
+			method = "write(Lnet/minecraft/util/math/ChunkPos;" +
+					"Lnet/minecraft/world/storage/StorageIoWorker$Result;)V",
+			at = @At(
+					value = "INVOKE",
+					target = "Lnet/minecraft/world/storage/RegionBasedStorage;write" +
+							"(Lnet/minecraft/util/math/ChunkPos;Lnet/minecraft/nbt/CompoundTag;)V"
+			)
+	)
+	private void writeChunk(RegionBasedStorage storage, ChunkPos pos, CompoundTag tag)
+			throws IOException {
+		final RegionBasedStorageMixin accessor = (RegionBasedStorageMixin) (Object) storage;
+
+		if (ChunkCompressor.isVanilla()) {
+			accessor.invokeWrite(pos, tag);
+		} else {
+			((RegionFileMixin) accessor.invokeGetRegionFile(pos)).invokeWriteChunk(
+					pos, ChunkCompressor.compress(tag)
+			);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin.chunkstorage;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.therandomlabs.randompatches.world.WorldSaveProgress;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.storage.StorageIoWorker;
+import net.minecraft.world.storage.VersionedChunkStorage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+@Mixin(VersionedChunkStorage.class)
+public final class VersionedChunkStorageMixin {
+	@Redirect(method = "setTagAt", at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/world/storage/StorageIoWorker;setResult" +
+					"(Lnet/minecraft/util/math/ChunkPos;Lnet/minecraft/nbt/CompoundTag;)" +
+					"Ljava/util/concurrent/CompletableFuture;"
+	))
+	private CompletableFuture<Void> setResult(
+			StorageIoWorker worker, ChunkPos pos, CompoundTag tag
+	) {
+		final CompletableFuture<Void> future = worker.setResult(pos, tag);
+
+		if (WorldSaveProgress.isTracking()) {
+			future.thenRun(WorldSaveProgress::onChunkSaved);
+		}
+
+		return future;
+	}
+}
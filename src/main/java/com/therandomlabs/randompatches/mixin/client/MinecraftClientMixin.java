@@ -48,6 +48,18 @@ public final class MinecraftClientMixin {
 		}
 	}
 
+	@Redirect(method = "updateWindowTitle", at = @At(
+			value = "INVOKE",
+			target = "Lnet/minecraft/client/util/Window;setTitle(Ljava/lang/String;)V"
+	))
+	private void setTitle(Window window, String title) {
+		if (RandomPatches.config().client.window.customTitle) {
+			RPWindowHandler.setWindowTitle(window, title);
+		} else {
+			window.setTitle(title);
+		}
+	}
+
 	@Redirect(method = "<init>", at = @At(
 			value = "INVOKE",
 			target = "Lnet/minecraft/client/util/Window;setIcon" +
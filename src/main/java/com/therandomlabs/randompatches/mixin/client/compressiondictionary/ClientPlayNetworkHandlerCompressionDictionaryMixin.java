@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin.client.compressiondictionary;
+
+import com.therandomlabs.randompatches.mixin.ClientConnectionMixin;
+import com.therandomlabs.randompatches.network.PacketCompressionDictionary;
+import io.netty.buffer.Unpooled;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.c2s.play.CustomPayloadC2SPacket;
+import net.minecraft.network.packet.s2c.play.GameJoinS2CPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientPlayNetworkHandler.class)
+public final class ClientPlayNetworkHandlerCompressionDictionaryMixin {
+	@Inject(method = "onGameJoin", at = @At("TAIL"))
+	private void onGameJoin(GameJoinS2CPacket packet, CallbackInfo info) {
+		final PacketCompressionDictionary dictionary = PacketCompressionDictionary.get();
+
+		if (dictionary != null) {
+			final ClientPlayNetworkHandler handler = (ClientPlayNetworkHandler) (Object) this;
+
+			//The announced dictionary is used for the rest of the connection, since the server
+			//only starts using it once it has received the announcement.
+			PacketCompressionDictionary.onAnnouncement(
+					((ClientConnectionMixin) handler.getConnection()).getChannel(), dictionary
+			);
+
+			//Servers without RandomPatches ignore this.
+			final PacketByteBuf data = new PacketByteBuf(Unpooled.buffer(4));
+			data.writeInt(dictionary.getID());
+			handler.sendPacket(
+					new CustomPayloadC2SPacket(PacketCompressionDictionary.CHANNEL, data)
+			);
+		}
+	}
+}
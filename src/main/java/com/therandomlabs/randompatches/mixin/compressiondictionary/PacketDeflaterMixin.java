@@ -0,0 +1,67 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin.compressiondictionary;
+
+import java.util.zip.Deflater;
+
+import com.therandomlabs.randompatches.network.CompressionDictionaryAccessor;
+import com.therandomlabs.randompatches.network.PacketCompressionDictionary;
+import net.minecraft.network.PacketDeflater;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+@Mixin(PacketDeflater.class)
+public final class PacketDeflaterMixin implements CompressionDictionaryAccessor {
+	@Unique
+	@Nullable
+	private PacketCompressionDictionary dictionary;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setCompressionDictionary(@Nullable PacketCompressionDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	@Redirect(method = "encode", at = @At(
+			value = "INVOKE",
+			target = "java/util/zip/Deflater.setInput([BII)V"
+	))
+	private void setInput(Deflater deflater, byte[] input, int offset, int length) {
+		if (PacketCompressionDictionary.isChunkDataPacket(input, offset, length)) {
+			PacketCompressionDictionary.captureSample(input, offset, length);
+
+			//The deflater is reset after every packet, so the dictionary must be set every time.
+			if (dictionary != null) {
+				deflater.setDictionary(dictionary.getBytes());
+			}
+		}
+
+		deflater.setInput(input, offset, length);
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin.compressiondictionary;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.therandomlabs.randompatches.network.CompressionDictionaryAccessor;
+import com.therandomlabs.randompatches.network.PacketCompressionDictionary;
+import net.minecraft.network.PacketInflater;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+@Mixin(PacketInflater.class)
+public final class PacketInflaterCompressionDictionaryMixin
+		implements CompressionDictionaryAccessor {
+	@Unique
+	@Nullable
+	private PacketCompressionDictionary dictionary;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setCompressionDictionary(@Nullable PacketCompressionDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	@Redirect(method = "decode", at = @At(
+			value = "INVOKE",
+			target = "java/util/zip/Inflater.inflate([B)I"
+	))
+	private int inflate(Inflater inflater, byte[] output) throws DataFormatException {
+		final int inflated = inflater.inflate(output);
+
+		if (inflated != 0 || !inflater.needsDictionary()) {
+			return inflated;
+		}
+
+		//When a dictionary is needed, getAdler returns the ID of the required dictionary.
+		if (dictionary == null || dictionary.getID() != inflater.getAdler()) {
+			throw new DataFormatException(
+					"Packet requires unknown compression dictionary: " + inflater.getAdler()
+			);
+		}
+
+		inflater.setDictionary(dictionary.getBytes());
+		return inflater.inflate(output);
+	}
+}
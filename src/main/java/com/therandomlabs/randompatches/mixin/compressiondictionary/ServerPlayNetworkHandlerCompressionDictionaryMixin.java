@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.mixin.compressiondictionary;
+
+import com.therandomlabs.randompatches.mixin.ClientConnectionMixin;
+import com.therandomlabs.randompatches.network.PacketCompressionDictionary;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.c2s.play.CustomPayloadC2SPacket;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerPlayNetworkHandler.class)
+public final class ServerPlayNetworkHandlerCompressionDictionaryMixin {
+	@Shadow
+	@Final
+	public ClientConnection connection;
+
+	@Inject(method = "onCustomPayload", at = @At("HEAD"))
+	private void onCustomPayload(CustomPayloadC2SPacket packet, CallbackInfo info) {
+		final CustomPayloadC2SPacketMixin accessor = (CustomPayloadC2SPacketMixin) packet;
+
+		if (!PacketCompressionDictionary.CHANNEL.equals(accessor.getChannel())) {
+			return;
+		}
+
+		final PacketByteBuf data = accessor.getData();
+
+		if (data.readableBytes() >= 4) {
+			PacketCompressionDictionary.onClientAnnouncement(
+					((ClientConnectionMixin) connection).getChannel(),
+					data.getInt(data.readerIndex())
+			);
+		}
+	}
+}
@@ -24,21 +24,51 @@
 package com.therandomlabs.randompatches.mixin.timeouts;
 
 import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.network.PingStatistics;
+import com.therandomlabs.randompatches.network.PingStatisticsAccessor;
+import net.minecraft.network.packet.c2s.play.KeepAliveC2SPacket;
 import net.minecraft.server.network.ServerPlayNetworkHandler;
 import net.minecraft.text.Text;
 import net.minecraft.util.Util;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Constant;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.ModifyConstant;
 import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(ServerPlayNetworkHandler.class)
-public final class ServerPlayNetworkHandlerKeepAliveMixin {
+public final class ServerPlayNetworkHandlerKeepAliveMixin implements PingStatisticsAccessor {
+	@Unique
+	private final PingStatistics pingStatistics = new PingStatistics();
+
 	@Shadow
 	private long lastKeepAliveTime;
 
+	@Shadow
+	private boolean waitingForKeepAlive;
+
+	@Shadow
+	private long keepAliveId;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PingStatistics getPingStatistics() {
+		return pingStatistics;
+	}
+
+	@Inject(method = "onKeepAlive", at = @At("HEAD"))
+	private void onKeepAlive(KeepAliveC2SPacket packet, CallbackInfo info) {
+		if (waitingForKeepAlive && packet.getId() == keepAliveId) {
+			pingStatistics.record(Util.getMeasuringTimeMs() - lastKeepAliveTime);
+		}
+	}
+
 	@Redirect(method = "tick", at = @At(
 			value = "INVOKE",
 			target = "Lnet/minecraft/server/network/ServerPlayNetworkHandler;disconnect" +
@@ -60,6 +90,6 @@ public final class ServerPlayNetworkHandlerKeepAliveMixin {
 			@Constant(longValue = 25000L)
 	})
 	private long getKeepAlivePacketInterval(long interval) {
-		return RandomPatches.config().connectionTimeouts.keepAlivePacketIntervalSeconds * 1000L;
+		return pingStatistics.getKeepAliveIntervalMillis();
 	}
 }
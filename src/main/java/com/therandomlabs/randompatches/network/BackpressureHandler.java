@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.therandomlabs.randompatches.RandomPatches;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.network.packet.s2c.play.ParticleS2CPacket;
+import net.minecraft.text.LiteralText;
+
+/**
+ * Applies backpressure to server connections whose clients do not read packets quickly enough.
+ * <p>
+ * While a connection is unwritable, i.e. while the number of pending bytes is above the write
+ * buffer high water mark, particle packets can be dropped. Other packets are never dropped, since
+ * dropping them would desynchronize the client state, e.g. a dropped relative entity movement
+ * would offset the entity until its next absolute position update. If the number of pending bytes
+ * exceeds a hard limit, the connection is closed.
+ * This handler should be added to the tail of the pipeline so that it receives packets before
+ * they are encoded.
+ */
+public final class BackpressureHandler extends ChannelDuplexHandler {
+	/**
+	 * The name of this handler in channel pipelines.
+	 */
+	public static final String NAME = "randompatches_backpressure";
+
+	private static final AtomicLong unwritableNanos = new AtomicLong();
+	private static final AtomicLong droppedPackets = new AtomicLong();
+	private static final AtomicLong disconnections = new AtomicLong();
+
+	private final boolean dropPackets;
+	private final long maxPendingBytes;
+
+	private long unwritableSince;
+	private boolean disconnecting;
+
+	/**
+	 * Constructs a {@link BackpressureHandler}.
+	 *
+	 * @param dropPackets whether non-essential packets should be dropped while the connection is
+	 * unwritable.
+	 * @param maxPendingBytes the number of pending bytes above which the connection is closed,
+	 * or {@code 0} if the connection should not be closed.
+	 */
+	public BackpressureHandler(boolean dropPackets, long maxPendingBytes) {
+		this.dropPackets = dropPackets;
+		this.maxPendingBytes = maxPendingBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext context) {
+		if (context.channel().isWritable()) {
+			recordUnwritableTime();
+		} else if (unwritableSince == 0L) {
+			unwritableSince = System.nanoTime();
+		}
+
+		context.fireChannelWritabilityChanged();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void channelInactive(ChannelHandlerContext context) throws Exception {
+		recordUnwritableTime();
+		super.channelInactive(context);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(ChannelHandlerContext context, Object message, ChannelPromise promise) {
+		if (dropPackets && !context.channel().isWritable() && isDroppable(message)) {
+			droppedPackets.incrementAndGet();
+			promise.trySuccess();
+			return;
+		}
+
+		context.write(message, promise);
+
+		if (maxPendingBytes != 0L && !disconnecting) {
+			final long pendingBytes = getPendingBytes(context);
+
+			if (pendingBytes > maxPendingBytes) {
+				disconnect(context, pendingBytes);
+			}
+		}
+	}
+
+	/**
+	 * Returns the total amount of time that connections have spent unwritable.
+	 * Connections that are currently unwritable are only counted once they become writable again
+	 * or are closed.
+	 *
+	 * @return the total amount of time that connections have spent unwritable in nanoseconds.
+	 */
+	public static long getUnwritableNanos() {
+		return unwritableNanos.get();
+	}
+
+	/**
+	 * Returns the number of packets that have been dropped due to backpressure.
+	 *
+	 * @return the number of dropped packets.
+	 */
+	public static long getDroppedPackets() {
+		return droppedPackets.get();
+	}
+
+	/**
+	 * Returns the number of connections that have been closed because they exceeded the maximum
+	 * number of pending bytes.
+	 *
+	 * @return the number of closed connections.
+	 */
+	public static long getDisconnections() {
+		return disconnections.get();
+	}
+
+	private void recordUnwritableTime() {
+		if (unwritableSince != 0L) {
+			unwritableNanos.addAndGet(System.nanoTime() - unwritableSince);
+			unwritableSince = 0L;
+		}
+	}
+
+	private void disconnect(ChannelHandlerContext context, long pendingBytes) {
+		disconnecting = true;
+		disconnections.incrementAndGet();
+
+		RandomPatches.logger.warn(
+				"Closing connection to {}: {} bytes are waiting to be sent, which exceeds the " +
+						"limit of {} bytes",
+				context.channel().remoteAddress(), pendingBytes, maxPendingBytes
+		);
+
+		final ChannelHandler packetHandler = context.pipeline().get("packet_handler");
+
+		if (packetHandler instanceof ClientConnection) {
+			((ClientConnection) packetHandler).disconnect(new LiteralText(
+					"The client is not receiving packets quickly enough"
+			));
+		} else {
+			context.close();
+		}
+	}
+
+	private static long getPendingBytes(ChannelHandlerContext context) {
+		final ChannelOutboundBuffer buffer = context.channel().unsafe().outboundBuffer();
+		return buffer == null ? 0L : buffer.totalPendingWriteBytes();
+	}
+
+	private static boolean isDroppable(Object message) {
+		return message instanceof ParticleS2CPacket;
+	}
+}
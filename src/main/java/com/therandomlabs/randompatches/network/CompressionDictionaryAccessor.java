@@ -0,0 +1,41 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An interface used to set the preset dictionary of a {@link net.minecraft.network.PacketDeflater}
+ * or a {@link net.minecraft.network.PacketInflater}.
+ */
+public interface CompressionDictionaryAccessor {
+	/**
+	 * Sets the preset dictionary used by this {@link net.minecraft.network.PacketDeflater} or
+	 * {@link net.minecraft.network.PacketInflater}.
+	 *
+	 * @param dictionary a {@link PacketCompressionDictionary}, or {@code null} if no dictionary
+	 * should be used.
+	 */
+	void setCompressionDictionary(@Nullable PacketCompressionDictionary dictionary);
+}
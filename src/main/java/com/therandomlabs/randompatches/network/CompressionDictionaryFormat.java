@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import java.util.zip.Adler32;
+
+/**
+ * Contains constants and methods related to the packet compression dictionary format.
+ * <p>
+ * This class does not depend on Minecraft so that it can be used by
+ * {@link PacketCompressionDictionaryTool}.
+ */
+public final class CompressionDictionaryFormat {
+	/**
+	 * The maximum useful dictionary size. Deflate cannot refer back further than this.
+	 */
+	public static final int MAX_SIZE = 32768;
+
+	private CompressionDictionaryFormat() {}
+
+	/**
+	 * Returns the ID of the specified dictionary bytes.
+	 *
+	 * @param bytes dictionary bytes.
+	 * @return the Adler-32 checksum of the specified bytes.
+	 */
+	public static int getID(byte[] bytes) {
+		final Adler32 adler = new Adler32();
+		adler.update(bytes, 0, bytes.length);
+		return (int) adler.getValue();
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import net.minecraft.network.NetworkState;
+import net.minecraft.network.Packet;
+import net.minecraft.network.packet.s2c.play.DisconnectS2CPacket;
+import net.minecraft.network.packet.s2c.play.KeepAliveS2CPacket;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Coalesces the flushes of a server connection so that the connection is flushed at most once
+ * at the end of every server tick rather than after almost every packet.
+ * <p>
+ * Flushes are only performed immediately if an urgent packet such as a KeepAlive packet has
+ * been written or if the number of pending bytes exceeds a threshold.
+ * This handler should be added to the tail of the pipeline so that it receives packets before
+ * they are encoded.
+ */
+public final class FlushCoalescingHandler extends ChannelOutboundHandlerAdapter {
+	/**
+	 * The name of this handler in channel pipelines.
+	 */
+	public static final String NAME = "randompatches_flush_coalescing";
+
+	private static final Set<FlushCoalescingHandler> handlers = ConcurrentHashMap.newKeySet();
+	private static final AtomicLong requestedFlushes = new AtomicLong();
+	private static final AtomicLong performedFlushes = new AtomicLong();
+
+	private final int thresholdBytes;
+	private final Runnable flushTask = this::flushIfPending;
+
+	@Nullable
+	private ChannelHandlerContext context;
+	private volatile boolean flushPending;
+	private boolean urgent;
+
+	/**
+	 * Constructs a {@link FlushCoalescingHandler}.
+	 *
+	 * @param thresholdBytes the number of pending bytes above which flushes are performed
+	 * immediately.
+	 */
+	public FlushCoalescingHandler(int thresholdBytes) {
+		this.thresholdBytes = thresholdBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handlerAdded(ChannelHandlerContext context) {
+		this.context = context;
+		handlers.add(this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handlerRemoved(ChannelHandlerContext context) {
+		handlers.remove(this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(ChannelHandlerContext context, Object message, ChannelPromise promise) {
+		if (message instanceof Packet && isUrgent((Packet<?>) message)) {
+			urgent = true;
+		}
+
+		context.write(message, promise);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void flush(ChannelHandlerContext context) {
+		requestedFlushes.incrementAndGet();
+
+		if (urgent || getPendingBytes(context) >= thresholdBytes) {
+			flush0(context);
+		} else {
+			flushPending = true;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close(ChannelHandlerContext context, ChannelPromise promise) {
+		//Pending writes are discarded when a channel is closed.
+		if (flushPending) {
+			flush0(context);
+		}
+
+		handlers.remove(this);
+		context.close(promise);
+	}
+
+	/**
+	 * Called at the end of every server tick.
+	 * Schedules a flush for every connection with pending writes.
+	 */
+	public static void onServerTick() {
+		for (FlushCoalescingHandler handler : handlers) {
+			final ChannelHandlerContext context = handler.context;
+
+			if (handler.flushPending && context != null) {
+				context.executor().execute(handler.flushTask);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of flushes that have been requested on coalesced connections.
+	 *
+	 * @return the number of requested flushes.
+	 */
+	public static long getRequestedFlushes() {
+		return requestedFlushes.get();
+	}
+
+	/**
+	 * Returns the number of flushes that have been performed on coalesced connections.
+	 *
+	 * @return the number of performed flushes.
+	 */
+	public static long getPerformedFlushes() {
+		return performedFlushes.get();
+	}
+
+	private void flushIfPending() {
+		if (flushPending && context != null) {
+			flush0(context);
+		}
+	}
+
+	private void flush0(ChannelHandlerContext context) {
+		urgent = false;
+		flushPending = false;
+		performedFlushes.incrementAndGet();
+		context.flush();
+	}
+
+	private static long getPendingBytes(ChannelHandlerContext context) {
+		final ChannelOutboundBuffer buffer = context.channel().unsafe().outboundBuffer();
+		return buffer == null ? 0L : buffer.totalPendingWriteBytes();
+	}
+
+	private static boolean isUrgent(Packet<?> packet) {
+		return packet instanceof KeepAliveS2CPacket || packet instanceof DisconnectS2CPacket ||
+				NetworkState.getPacketHandlerState(packet) != NetworkState.PLAY;
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.therandomlabs.randompatches.RPConfig;
+import com.therandomlabs.randompatches.RandomPatches;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A bounded worker pool that runs login authentication tasks.
+ * <p>
+ * In vanilla Minecraft, a new thread is started for every login. This pool instead runs
+ * authentication tasks on a fixed number of threads, limits the number of queued tasks in total
+ * and per address, and runs queued tasks in round-robin order across addresses so that a single
+ * address cannot starve the others. This class also limits the number of players that are
+ * accepted into the world per server tick.
+ */
+public final class LoginAuthenticationPool {
+	private static final Map<String, Queue<Runnable>> queues = new HashMap<>();
+	private static final Deque<String> order = new ArrayDeque<>();
+
+	@Nullable
+	private static ExecutorService executor;
+	private static int executorThreads;
+	private static int queued;
+
+	private static int acceptanceTick = -1;
+	private static int acceptancesThisTick;
+
+	private LoginAuthenticationPool() {}
+
+	/**
+	 * Returns whether login authentication tasks should be run by this pool.
+	 *
+	 * @return {@code true} if the pool is enabled, or otherwise {@code false}.
+	 */
+	public static boolean isEnabled() {
+		return RandomPatches.config().network.loginAuthenticationThreads != 0;
+	}
+
+	/**
+	 * Queues a login authentication task.
+	 *
+	 * @param address the address of the connection that is logging in.
+	 * @param task the authentication task.
+	 * @return {@code true} if the task was queued, or {@code false} if the queue for the specified
+	 * address or the pool as a whole is full.
+	 */
+	public static boolean submit(String address, Runnable task) {
+		final RPConfig.Network config = RandomPatches.config().network;
+
+		synchronized (queues) {
+			if (config.maxQueuedLogins != 0 && queued >= config.maxQueuedLogins) {
+				return false;
+			}
+
+			Queue<Runnable> queue = queues.get(address);
+
+			if (queue == null) {
+				queue = new ArrayDeque<>();
+				queues.put(address, queue);
+				order.add(address);
+			} else if (config.maxQueuedLoginsPerAddress != 0 &&
+					queue.size() >= config.maxQueuedLoginsPerAddress) {
+				return false;
+			}
+
+			final long submitted = System.nanoTime();
+			queue.add(() -> {
+				LoginStatistics.record(
+						LoginStatistics.Stage.QUEUE, System.nanoTime() - submitted
+				);
+				task.run();
+			});
+			queued++;
+		}
+
+		getExecutor(config.loginAuthenticationThreads).execute(
+				LoginAuthenticationPool::runNext
+		);
+		return true;
+	}
+
+	/**
+	 * Returns the number of queued login authentication tasks.
+	 *
+	 * @return the number of queued login authentication tasks.
+	 */
+	public static int getQueueDepth() {
+		synchronized (queues) {
+			return queued;
+		}
+	}
+
+	/**
+	 * Returns whether a player may be accepted into the world during the specified tick.
+	 * If this returns {@code true}, the acceptance is counted towards the limit for the tick.
+	 *
+	 * @param tick the current server tick.
+	 * @return {@code true} if a player may be accepted, or otherwise {@code false}.
+	 */
+	public static boolean tryAccept(int tick) {
+		final int limit = RandomPatches.config().network.maxLoginsAcceptedPerTick;
+
+		if (tick != acceptanceTick) {
+			acceptanceTick = tick;
+			acceptancesThisTick = 0;
+		}
+
+		if (limit != 0 && acceptancesThisTick >= limit) {
+			return false;
+		}
+
+		acceptancesThisTick++;
+		return true;
+	}
+
+	private static synchronized ExecutorService getExecutor(int threads) {
+		if (executor == null || executorThreads != threads) {
+			if (executor != null) {
+				//Already queued tasks are still run.
+				executor.shutdown();
+			}
+
+			executorThreads = threads;
+			executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().
+					setNameFormat("User Authenticator #%d").
+					setDaemon(true).
+					build());
+		}
+
+		return executor;
+	}
+
+	private static void runNext() {
+		final Runnable task;
+
+		synchronized (queues) {
+			final String address = order.poll();
+
+			if (address == null) {
+				return;
+			}
+
+			final Queue<Runnable> queue = queues.get(address);
+			task = queue.remove();
+
+			if (queue.isEmpty()) {
+				queues.remove(address);
+			} else {
+				order.add(address);
+			}
+
+			queued--;
+		}
+
+		try {
+			task.run();
+		} catch (RuntimeException ex) {
+			RandomPatches.logger.error("Failed to authenticate login", ex);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency statistics for the stages of the login pipeline.
+ */
+public final class LoginStatistics {
+	/**
+	 * Login pipeline stages.
+	 */
+	public enum Stage {
+		/**
+		 * Waiting in the login authentication pool queue.
+		 */
+		QUEUE,
+		/**
+		 * Session verification and profile lookup.
+		 */
+		AUTHENTICATION,
+		/**
+		 * Waiting for the server thread after authentication.
+		 */
+		ACCEPT_WAIT,
+		/**
+		 * Loading player data and joining the world on the server thread.
+		 */
+		WORLD_JOIN;
+
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		/**
+		 * Returns the number of times this stage has been completed.
+		 *
+		 * @return the number of times this stage has been completed.
+		 */
+		public long getCount() {
+			return count.get();
+		}
+
+		/**
+		 * Returns the mean duration of this stage.
+		 *
+		 * @return the mean duration of this stage in milliseconds.
+		 */
+		public double getMeanMillis() {
+			final long count = this.count.get();
+			return count == 0L ? 0.0 : totalNanos.get() / 1.0E6 / count;
+		}
+
+		/**
+		 * Returns the maximum duration of this stage.
+		 *
+		 * @return the maximum duration of this stage in milliseconds.
+		 */
+		public double getMaxMillis() {
+			return maxNanos.get() / 1.0E6;
+		}
+	}
+
+	private LoginStatistics() {}
+
+	/**
+	 * Records the duration of a login pipeline stage.
+	 *
+	 * @param stage a {@link Stage}.
+	 * @param nanos the duration of the stage in nanoseconds.
+	 */
+	public static void record(Stage stage, long nanos) {
+		stage.count.incrementAndGet();
+		stage.totalNanos.addAndGet(nanos);
+		stage.maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import net.minecraft.network.Packet;
+
+/**
+ * An interface used to coalesce the movement packets received by a
+ * {@link net.minecraft.server.network.ServerPlayNetworkHandler}.
+ */
+public interface MovePacketCoalescingAccessor {
+	/**
+	 * Called on a network thread when a packet is scheduled to be handled on the server thread.
+	 *
+	 * @param packet the packet.
+	 */
+	void onPacketScheduled(Packet<?> packet);
+
+	/**
+	 * Returns the number of movement packets that have been merged into earlier movement packets
+	 * rather than being validated separately.
+	 *
+	 * @return the number of coalesced movement packets.
+	 */
+	long getCoalescedMovePackets();
+
+	/**
+	 * Returns the factor by which the player speed limits should be multiplied for the movement
+	 * packet that is being handled, which accounts for the packets that were merged into it.
+	 *
+	 * @return the player speed limit multiplier for the movement packet that is being handled.
+	 */
+	float getSpeedLimitMultiplier();
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import java.util.concurrent.ThreadFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.therandomlabs.randompatches.RPConfig;
+import com.therandomlabs.randompatches.RandomPatches;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Handles the configuration of the server network transport, event loop groups and socket options.
+ */
+public final class NetworkTransportHandler {
+	@Nullable
+	private static EventLoopGroup bossGroup;
+	@Nullable
+	private static EventLoopGroup workerGroup;
+	private static boolean epollGroups;
+
+	private NetworkTransportHandler() {}
+
+	/**
+	 * Called by {@link RPConfig.Network} when the RandomPatches configuration is reloaded.
+	 * A warning is logged here if the native transport is configured but not available, since
+	 * {@link #useNativeTransport(boolean)} is only called by vanilla when it is available.
+	 *
+	 * @param transport the configured server network transport.
+	 */
+	public static void onConfigReload(RPConfig.NetworkTransport transport) {
+		if (transport == RPConfig.NetworkTransport.NATIVE && !Epoll.isAvailable()) {
+			RandomPatches.logger.warn(
+					"The native transport is not available, so the NIO transport will be used",
+					Epoll.unavailabilityCause()
+			);
+		}
+	}
+
+	/**
+	 * Returns whether the native transport should be used by the server.
+	 * This is only called if the native transport is available.
+	 *
+	 * @param vanilla whether the native transport would be used in vanilla Minecraft.
+	 * @return {@code true} if the native transport should be used, or otherwise {@code false}.
+	 */
+	public static boolean useNativeTransport(boolean vanilla) {
+		final RPConfig.NetworkTransport transport = RandomPatches.config().network.transport;
+
+		if (transport == RPConfig.NetworkTransport.NIO) {
+			return false;
+		}
+
+		return transport == RPConfig.NetworkTransport.NATIVE || vanilla;
+	}
+
+	/**
+	 * Sets the event loop groups of the specified {@link ServerBootstrap}.
+	 * If no thread counts are configured, the vanilla event loop group is used for both the boss
+	 * and the worker event loops.
+	 *
+	 * @param bootstrap a {@link ServerBootstrap}.
+	 * @param vanillaGroup the vanilla event loop group.
+	 * @return the {@link ServerBootstrap}.
+	 */
+	public static ServerBootstrap setEventLoopGroups(
+			ServerBootstrap bootstrap, EventLoopGroup vanillaGroup
+	) {
+		final RPConfig.Network config = RandomPatches.config().network;
+
+		if (config.bossThreads == 0 && config.workerThreads == 0) {
+			return bootstrap.group(vanillaGroup);
+		}
+
+		//The event loop group type must match the server channel type chosen by vanilla.
+		final boolean epoll = vanillaGroup instanceof EpollEventLoopGroup;
+
+		if (workerGroup == null || bossGroup == null || epollGroups != epoll) {
+			epollGroups = epoll;
+			workerGroup = createGroup(epoll, config.workerThreads, "Worker");
+			bossGroup = config.bossThreads == 0 ?
+					workerGroup : createGroup(epoll, config.bossThreads, "Boss");
+		}
+
+		return bootstrap.group(bossGroup, workerGroup);
+	}
+
+	/**
+	 * Applies the configured socket options to the specified client channel.
+	 *
+	 * @param channel a client channel accepted by the server.
+	 */
+	public static void configureChannel(Channel channel) {
+		final RPConfig.Network config = RandomPatches.config().network;
+		final ChannelConfig channelConfig = channel.config();
+
+		try {
+			channelConfig.setOption(ChannelOption.TCP_NODELAY, config.tcpNoDelay);
+
+			if (config.sendBufferSize != 0) {
+				channelConfig.setOption(ChannelOption.SO_SNDBUF, config.sendBufferSize);
+			}
+
+			if (config.receiveBufferSize != 0) {
+				channelConfig.setOption(ChannelOption.SO_RCVBUF, config.receiveBufferSize);
+			}
+		} catch (ChannelException ignored) {
+			//Not all transports support all socket options.
+		}
+
+		channelConfig.setWriteBufferWaterMark(new WriteBufferWaterMark(
+				config.writeBufferLowWaterMark, config.writeBufferHighWaterMark
+		));
+	}
+
+	private static EventLoopGroup createGroup(boolean epoll, int threads, String name) {
+		final ThreadFactory factory = new ThreadFactoryBuilder().
+				setNameFormat("Netty " + (epoll ? "Epoll " : "") + "Server " + name + " IO #%d").
+				setDaemon(true).
+				build();
+		//A thread count of 0 makes Netty use its default thread count.
+		return epoll ?
+				new EpollEventLoopGroup(threads, factory) : new NioEventLoopGroup(threads, factory);
+	}
+}
@@ -0,0 +1,263 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.therandomlabs.randompatches.RandomPatches;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import net.minecraft.network.NetworkSide;
+import net.minecraft.network.NetworkState;
+import net.minecraft.network.packet.s2c.play.ChunkDataS2CPacket;
+import net.minecraft.util.Identifier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A preset dictionary used to compress packets.
+ * <p>
+ * A dictionary is only used to compress chunk data packets sent to a client after the client has
+ * announced that it has loaded the same dictionary. Because zlib streams compressed with a preset
+ * dictionary record the Adler-32 checksum of that dictionary, the receiving side can always tell
+ * whether a packet requires a dictionary, so connections with vanilla clients and servers are
+ * unaffected.
+ */
+public final class PacketCompressionDictionary {
+	/**
+	 * The custom payload channel used by clients to announce their dictionary.
+	 */
+	public static final Identifier CHANNEL =
+			new Identifier(RandomPatches.MOD_ID, "compression_dictionary");
+
+	/**
+	 * The maximum useful dictionary size. Deflate cannot refer back further than this.
+	 */
+	public static final int MAX_SIZE = CompressionDictionaryFormat.MAX_SIZE;
+
+	/**
+	 * The directory to which packet samples are captured.
+	 */
+	public static final String SAMPLE_DIRECTORY = "randompatches/compression_samples";
+
+	@SuppressWarnings("ConstantConditions")
+	private static final int CHUNK_DATA_PACKET_ID =
+			NetworkState.PLAY.getPacketId(NetworkSide.CLIENTBOUND, new ChunkDataS2CPacket());
+
+	private static final AtomicInteger capturedSamples = new AtomicInteger();
+
+	//Samples are written on a separate thread so that the Netty event loop is never blocked.
+	private static final ExecutorService sampleWriter = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().
+					setNameFormat("Packet Sample Writer").
+					setDaemon(true).
+					build()
+	);
+
+	@Nullable
+	private static volatile PacketCompressionDictionary current;
+	private static volatile int samplesToCapture;
+
+	private final byte[] bytes;
+	private final int id;
+
+	private PacketCompressionDictionary(byte[] bytes) {
+		this.bytes = bytes;
+		id = getID(bytes);
+	}
+
+	/**
+	 * Returns the bytes of this dictionary.
+	 *
+	 * @return the bytes of this dictionary.
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the ID of this dictionary, which is its Adler-32 checksum.
+	 *
+	 * @return the ID of this dictionary.
+	 */
+	public int getID() {
+		return id;
+	}
+
+	/**
+	 * Called by {@link com.therandomlabs.randompatches.RPConfig.PacketCompression} when the
+	 * RandomPatches configuration is reloaded.
+	 *
+	 * @param path the path to the dictionary, or an empty string if no dictionary should be used.
+	 * @param samples the number of packet samples that should be captured.
+	 */
+	public static void onConfigReload(String path, int samples) {
+		samplesToCapture = samples;
+
+		if (path.isEmpty()) {
+			current = null;
+			return;
+		}
+
+		try {
+			byte[] bytes = Files.readAllBytes(Paths.get(path));
+
+			if (bytes.length > MAX_SIZE) {
+				//Deflate can only refer to the last 32 KiB of the dictionary.
+				final byte[] truncated = new byte[MAX_SIZE];
+				System.arraycopy(bytes, bytes.length - MAX_SIZE, truncated, 0, MAX_SIZE);
+				bytes = truncated;
+			}
+
+			current = bytes.length == 0 ? null : new PacketCompressionDictionary(bytes);
+		} catch (IOException ex) {
+			RandomPatches.logger.error("Failed to load packet compression dictionary", ex);
+			current = null;
+		}
+	}
+
+	/**
+	 * Returns the currently loaded dictionary.
+	 *
+	 * @return the currently loaded dictionary, or {@code null} if no dictionary is loaded.
+	 */
+	@Nullable
+	public static PacketCompressionDictionary get() {
+		return current;
+	}
+
+	/**
+	 * Called when a client announces the dictionary it has loaded.
+	 * If it matches the dictionary loaded by the server, the dictionary is used to compress all
+	 * further packets sent to the client.
+	 *
+	 * @param channel the channel of the client connection.
+	 * @param id the ID of the dictionary loaded by the client.
+	 */
+	public static void onClientAnnouncement(Channel channel, int id) {
+		final PacketCompressionDictionary dictionary = current;
+
+		if (dictionary != null && dictionary.id == id) {
+			setCompressionDictionary(channel, "compress", dictionary);
+		}
+	}
+
+	/**
+	 * Called when the client announces the dictionary it has loaded to the server.
+	 * The dictionary is used to decompress all further packets received from the server, even if
+	 * a different dictionary is loaded when the configuration is reloaded.
+	 *
+	 * @param channel the channel of the server connection.
+	 * @param dictionary the announced dictionary.
+	 */
+	public static void onAnnouncement(Channel channel, PacketCompressionDictionary dictionary) {
+		setCompressionDictionary(channel, "decompress", dictionary);
+	}
+
+	/**
+	 * Returns whether the specified uncompressed packet is a chunk data packet.
+	 * Dictionaries are only used to compress chunk data packets, since other packets are usually
+	 * too small to benefit from them.
+	 *
+	 * @param bytes the uncompressed packet.
+	 * @param offset the offset of the packet in the array.
+	 * @param length the length of the packet.
+	 * @return {@code true} if the packet is a chunk data packet, or otherwise {@code false}.
+	 */
+	public static boolean isChunkDataPacket(byte[] bytes, int offset, int length) {
+		//The packet starts with its ID as a VarInt.
+		int id = 0;
+
+		for (int i = 0; i < 5 && i < length; i++) {
+			final byte b = bytes[offset + i];
+			id |= (b & 0x7F) << (i * 7);
+
+			if ((b & 0x80) == 0) {
+				return id == CHUNK_DATA_PACKET_ID;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Captures a chunk data packet sample for training a dictionary if more samples should be
+	 * captured.
+	 *
+	 * @param bytes the uncompressed packet.
+	 * @param offset the offset of the packet in the array.
+	 * @param length the length of the packet.
+	 */
+	public static void captureSample(byte[] bytes, int offset, int length) {
+		if (samplesToCapture == 0) {
+			return;
+		}
+
+		final int sample = capturedSamples.getAndIncrement();
+
+		if (sample >= samplesToCapture) {
+			return;
+		}
+
+		final byte[] copy = new byte[length];
+		System.arraycopy(bytes, offset, copy, 0, length);
+
+		sampleWriter.execute(() -> {
+			final Path directory = Paths.get(SAMPLE_DIRECTORY);
+
+			try {
+				Files.createDirectories(directory);
+				Files.write(directory.resolve(sample + ".bin"), copy);
+			} catch (IOException ex) {
+				RandomPatches.logger.error("Failed to capture packet sample", ex);
+			}
+		});
+	}
+
+	private static void setCompressionDictionary(
+			Channel channel, String handlerName, PacketCompressionDictionary dictionary
+	) {
+		final ChannelHandler handler = channel.pipeline().get(handlerName);
+
+		if (handler instanceof CompressionDictionaryAccessor) {
+			((CompressionDictionaryAccessor) handler).setCompressionDictionary(dictionary);
+		}
+	}
+
+	/**
+	 * Returns the ID of the specified dictionary bytes.
+	 *
+	 * @param bytes dictionary bytes.
+	 * @return the Adler-32 checksum of the specified bytes.
+	 */
+	public static int getID(byte[] bytes) {
+		return CompressionDictionaryFormat.getID(bytes);
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A command-line tool that trains packet compression dictionaries from packet samples captured
+ * by RandomPatches and benchmarks them against vanilla compression.
+ * <p>
+ * This class does not depend on Minecraft, so it can be run with only the RandomPatches JAR on
+ * the classpath:
+ * <pre>
+ * java -cp randompatches.jar \
+ *     com.therandomlabs.randompatches.network.PacketCompressionDictionaryTool \
+ *     train &lt;sample directory&gt; &lt;output file&gt; [size]
+ * java -cp randompatches.jar \
+ *     com.therandomlabs.randompatches.network.PacketCompressionDictionaryTool \
+ *     benchmark &lt;sample directory&gt; &lt;dictionary file&gt;
+ * </pre>
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+public final class PacketCompressionDictionaryTool {
+	private static final class Segment {
+		private final int offset;
+		private final long score;
+
+		Segment(int offset, long score) {
+			this.offset = offset;
+			this.score = score;
+		}
+	}
+
+	//The length of the byte sequences whose frequencies are counted.
+	private static final int DMER_SIZE = 8;
+	private static final int SEGMENT_SIZE = 64;
+	private static final int SEGMENT_STEP = 8;
+	private static final int BENCHMARK_ITERATIONS = 5;
+
+	private PacketCompressionDictionaryTool() {}
+
+	/**
+	 * Runs the tool.
+	 *
+	 * @param args the command-line arguments.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 3 && "train".equals(args[0])) {
+			final int size = args.length > 3 ?
+					Math.min(Integer.parseInt(args[3]), CompressionDictionaryFormat.MAX_SIZE) :
+					CompressionDictionaryFormat.MAX_SIZE;
+			final byte[] dictionary = train(readSamples(Paths.get(args[1])), size);
+			Files.write(Paths.get(args[2]), dictionary);
+			System.out.printf(
+					"Wrote %d byte dictionary with ID %d to %s%n", dictionary.length,
+					CompressionDictionaryFormat.getID(dictionary), args[2]
+			);
+		} else if (args.length == 3 && "benchmark".equals(args[0])) {
+			benchmark(readSamples(Paths.get(args[1])), Files.readAllBytes(Paths.get(args[2])));
+		} else {
+			System.err.println("Usage:");
+			System.err.println("  train <sample directory> <output file> [size]");
+			System.err.println("  benchmark <sample directory> <dictionary file>");
+		}
+	}
+
+	/**
+	 * Trains a dictionary from the specified samples.
+	 * <p>
+	 * The samples are split into as many epochs as there are segments in the dictionary, and
+	 * the segment from each epoch whose byte sequences occur in the most samples is selected.
+	 * The most useful segments are placed at the end of the dictionary, as deflate encodes
+	 * shorter distances more cheaply.
+	 *
+	 * @param samples the samples.
+	 * @param size the maximum dictionary size.
+	 * @return the dictionary.
+	 */
+	public static byte[] train(List<byte[]> samples, int size) {
+		final Map<Long, Integer> frequencies = new HashMap<>();
+		int corpusSize = 0;
+
+		for (byte[] sample : samples) {
+			final Set<Long> seen = new HashSet<>();
+
+			for (int i = 0; i <= sample.length - DMER_SIZE; i++) {
+				final long dmer = getDmer(sample, i);
+
+				if (seen.add(dmer)) {
+					frequencies.merge(dmer, 1, Integer::sum);
+				}
+			}
+
+			corpusSize += sample.length;
+		}
+
+		final byte[] corpus = new byte[corpusSize];
+		int position = 0;
+
+		for (byte[] sample : samples) {
+			System.arraycopy(sample, 0, corpus, position, sample.length);
+			position += sample.length;
+		}
+
+		final int segmentCount = Math.max(1, size / SEGMENT_SIZE);
+		final int epochSize = Math.max(SEGMENT_SIZE, corpusSize / segmentCount);
+		final List<Segment> segments = new ArrayList<>(segmentCount);
+
+		for (int epoch = 0; epoch + SEGMENT_SIZE <= corpusSize; epoch += epochSize) {
+			final int end = Math.min(epoch + epochSize, corpusSize) - SEGMENT_SIZE;
+			Segment best = null;
+
+			for (int offset = epoch; offset <= end; offset += SEGMENT_STEP) {
+				final long score = getScore(corpus, offset, frequencies);
+
+				if (score > 0 && (best == null || score > best.score)) {
+					best = new Segment(offset, score);
+				}
+			}
+
+			if (best != null) {
+				segments.add(best);
+
+				//Byte sequences that are already covered by the dictionary are worthless.
+				for (int i = 0; i <= SEGMENT_SIZE - DMER_SIZE; i++) {
+					frequencies.put(getDmer(corpus, best.offset + i), 0);
+				}
+			}
+		}
+
+		segments.sort(Comparator.comparingLong(segment -> segment.score));
+
+		final int segmentsToUse = Math.min(segments.size(), segmentCount);
+		final byte[] dictionary = new byte[segmentsToUse * SEGMENT_SIZE];
+
+		for (int i = 0; i < segmentsToUse; i++) {
+			final Segment segment = segments.get(segments.size() - segmentsToUse + i);
+			System.arraycopy(corpus, segment.offset, dictionary, i * SEGMENT_SIZE, SEGMENT_SIZE);
+		}
+
+		return dictionary;
+	}
+
+	private static void benchmark(List<byte[]> samples, byte[] dictionary) {
+		long uncompressed = 0L;
+
+		for (byte[] sample : samples) {
+			uncompressed += sample.length;
+		}
+
+		//Warm up.
+		compress(samples, null);
+		compress(samples, dictionary);
+
+		long vanillaSize = 0L;
+		long vanillaTime = 0L;
+		long dictionarySize = 0L;
+		long dictionaryTime = 0L;
+
+		for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+			long start = System.nanoTime();
+			vanillaSize = compress(samples, null);
+			vanillaTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			dictionarySize = compress(samples, dictionary);
+			dictionaryTime += System.nanoTime() - start;
+		}
+
+		System.out.printf(
+				"%d samples, %d bytes uncompressed%n", samples.size(), uncompressed
+		);
+		System.out.printf(
+				"Vanilla:    %d bytes (ratio %.3f), %.2f ms%n", vanillaSize,
+				(double) uncompressed / vanillaSize, vanillaTime / 1.0E6 / BENCHMARK_ITERATIONS
+		);
+		System.out.printf(
+				"Dictionary: %d bytes (ratio %.3f), %.2f ms%n", dictionarySize,
+				(double) uncompressed / dictionarySize,
+				dictionaryTime / 1.0E6 / BENCHMARK_ITERATIONS
+		);
+	}
+
+	private static long compress(List<byte[]> samples, byte @Nullable [] dictionary) {
+		final Deflater deflater = new Deflater();
+		final byte[] buffer = new byte[8192];
+		long size = 0L;
+
+		for (byte[] sample : samples) {
+			if (dictionary != null) {
+				deflater.setDictionary(dictionary);
+			}
+
+			deflater.setInput(sample);
+			deflater.finish();
+
+			while (!deflater.finished()) {
+				size += deflater.deflate(buffer);
+			}
+
+			deflater.reset();
+		}
+
+		deflater.end();
+		return size;
+	}
+
+	private static List<byte[]> readSamples(Path directory) throws IOException {
+		final List<Path> paths;
+
+		try (Stream<Path> stream = Files.list(directory)) {
+			paths = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+
+		final List<byte[]> samples = new ArrayList<>(paths.size());
+
+		for (Path path : paths) {
+			samples.add(Files.readAllBytes(path));
+		}
+
+		return samples;
+	}
+
+	private static long getScore(byte[] corpus, int offset, Map<Long, Integer> frequencies) {
+		final Set<Long> seen = new HashSet<>();
+		long score = 0L;
+
+		for (int i = 0; i <= SEGMENT_SIZE - DMER_SIZE; i++) {
+			final long dmer = getDmer(corpus, offset + i);
+
+			if (seen.add(dmer)) {
+				score += frequencies.getOrDefault(dmer, 0);
+			}
+		}
+
+		return score;
+	}
+
+	private static long getDmer(byte[] bytes, int offset) {
+		long dmer = 0L;
+
+		for (int i = 0; i < DMER_SIZE; i++) {
+			dmer = dmer << 8 | (bytes[offset + i] & 0xFF);
+		}
+
+		return dmer;
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.therandomlabs.randompatches.RPConfig;
+import com.therandomlabs.randompatches.RandomPatches;
+
+/**
+ * Round-trip time statistics derived from KeepAlive responses.
+ * <p>
+ * An instance is kept for every player connection, and a global instance aggregates the
+ * round-trip times of all players. Round-trip times are recorded in a histogram, and the
+ * average round-trip time and jitter of each player are tracked as exponentially weighted moving
+ * averages. When adaptive KeepAlive scheduling is enabled, the KeepAlive packet interval of each
+ * player is lengthened while their round-trip time is stable and shortened when it is not.
+ */
+public final class PingStatistics {
+	private static final int[] BUCKET_BOUNDS = {
+			5, 10, 20, 30, 50, 75, 100, 150, 200, 300, 500, 750, 1000, 2000, 5000
+	};
+
+	private static final int MIN_SAMPLES_TO_ADAPT = 4;
+
+	private static final PingStatistics global = new PingStatistics();
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+	private final AtomicLong samples = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	//These are only written by the network thread of a single connection.
+	private volatile double averageRTT;
+	private volatile double jitter;
+	private volatile long lastRTT = -1L;
+	private volatile long keepAliveIntervalMillis;
+
+	/**
+	 * Records a round-trip time.
+	 *
+	 * @param rtt a round-trip time in milliseconds.
+	 */
+	public void record(long rtt) {
+		recordHistogram(rtt);
+		global.recordHistogram(rtt);
+
+		if (lastRTT == -1L) {
+			averageRTT = rtt;
+		} else {
+			//RFC 3550 interarrival jitter estimation.
+			jitter += (Math.abs(rtt - lastRTT) - jitter) / 16.0;
+			averageRTT += (rtt - averageRTT) / 8.0;
+		}
+
+		lastRTT = rtt;
+		adaptKeepAliveInterval();
+	}
+
+	/**
+	 * Returns the interval at which KeepAlive packets should be sent to this player.
+	 *
+	 * @return the KeepAlive packet interval in milliseconds.
+	 */
+	public long getKeepAliveIntervalMillis() {
+		final RPConfig.ConnectionTimeouts config = RandomPatches.config().connectionTimeouts;
+
+		if (!config.adaptiveKeepAlive || keepAliveIntervalMillis == 0L) {
+			return config.keepAlivePacketIntervalSeconds * 1000L;
+		}
+
+		return keepAliveIntervalMillis;
+	}
+
+	/**
+	 * Returns the number of recorded round-trip times.
+	 *
+	 * @return the number of recorded round-trip times.
+	 */
+	public long getSamples() {
+		return samples.get();
+	}
+
+	/**
+	 * Returns the mean of all recorded round-trip times.
+	 *
+	 * @return the mean round-trip time in milliseconds.
+	 */
+	public double getMeanRTT() {
+		final long count = samples.get();
+		return count == 0L ? 0.0 : (double) sum.get() / count;
+	}
+
+	/**
+	 * Returns the exponentially weighted moving average of the round-trip time.
+	 * This is always 0 for the global statistics.
+	 *
+	 * @return the average round-trip time in milliseconds.
+	 */
+	public double getAverageRTT() {
+		return averageRTT;
+	}
+
+	/**
+	 * Returns the jitter of the round-trip time.
+	 * This is always 0 for the global statistics.
+	 *
+	 * @return the jitter in milliseconds.
+	 */
+	public double getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * Returns the highest recorded round-trip time.
+	 *
+	 * @return the highest recorded round-trip time in milliseconds.
+	 */
+	public long getMaxRTT() {
+		return max.get();
+	}
+
+	/**
+	 * Returns an upper bound for the specified percentile of the recorded round-trip times.
+	 *
+	 * @param percentile a percentile between 0.0 and 1.0.
+	 * @return the upper bound of the histogram bucket that contains the specified percentile
+	 * in milliseconds.
+	 */
+	public long getPercentile(double percentile) {
+		final long target = (long) Math.ceil(samples.get() * percentile);
+		long cumulative = 0L;
+
+		for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+			cumulative += buckets.get(i);
+
+			if (cumulative >= target) {
+				return Math.min(BUCKET_BOUNDS[i], max.get());
+			}
+		}
+
+		return max.get();
+	}
+
+	/**
+	 * Returns the global statistics, which aggregate the round-trip times of all players.
+	 *
+	 * @return the global {@link PingStatistics}.
+	 */
+	public static PingStatistics global() {
+		return global;
+	}
+
+	private void recordHistogram(long rtt) {
+		int bucket = 0;
+
+		while (bucket < BUCKET_BOUNDS.length && rtt > BUCKET_BOUNDS[bucket]) {
+			bucket++;
+		}
+
+		buckets.incrementAndGet(bucket);
+		samples.incrementAndGet();
+		sum.addAndGet(rtt);
+		max.accumulateAndGet(rtt, Math::max);
+	}
+
+	private void adaptKeepAliveInterval() {
+		final RPConfig.ConnectionTimeouts config = RandomPatches.config().connectionTimeouts;
+
+		if (!config.adaptiveKeepAlive || samples.get() < MIN_SAMPLES_TO_ADAPT) {
+			return;
+		}
+
+		final long minimum = config.minAdaptiveKeepAlivePacketIntervalSeconds * 1000L;
+		final long maximum = config.maxAdaptiveKeepAlivePacketIntervalSeconds * 1000L;
+		long interval = getKeepAliveIntervalMillis();
+
+		if (jitter <= averageRTT * 0.1 + 5.0) {
+			interval = interval * 3L / 2L;
+		} else if (jitter > averageRTT * 0.5 + 20.0) {
+			interval /= 2L;
+		}
+
+		keepAliveIntervalMillis = Math.max(minimum, Math.min(maximum, interval));
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.network;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+
+/**
+ * Handles the resolution of permission-tiered player speed limits.
+ * <p>
+ * Player speed limits are resolved into fields on each
+ * {@link net.minecraft.server.network.ServerPlayNetworkHandler} when a player joins, when their
+ * permission level changes and after the configuration is reloaded, so that movement packets
+ * do not need to look up permission levels.
+ */
+public final class PlayerSpeedLimitsHandler {
+	private static volatile int generation;
+
+	private PlayerSpeedLimitsHandler() {}
+
+	/**
+	 * Called when the player speed limits configuration is reloaded.
+	 * Causes the player speed limits of all players to be resolved again.
+	 */
+	public static void onConfigReload() {
+		generation++;
+	}
+
+	/**
+	 * Returns the current configuration generation.
+	 * Player speed limits resolved in an earlier generation are out of date.
+	 *
+	 * @return the current configuration generation.
+	 */
+	public static int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Resolves the player speed limits of the specified player.
+	 *
+	 * @param player a {@link ServerPlayerEntity}.
+	 */
+	public static void update(ServerPlayerEntity player) {
+		//This may be null if the player has not finished joining, and does not implement
+		//PlayerSpeedLimitsAccessor if ServerPlayNetworkHandlerPlayerSpeedLimitsMixin is
+		//blacklisted.
+		if (player.networkHandler instanceof PlayerSpeedLimitsAccessor) {
+			((PlayerSpeedLimitsAccessor) player.networkHandler).updatePlayerSpeedLimits();
+		}
+	}
+}
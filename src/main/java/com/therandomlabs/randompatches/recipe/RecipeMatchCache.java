@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.recipe;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.recipe.Recipe;
+import net.minecraft.recipe.RecipeMatcher;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Caches the {@link RecipeMatcher} results computed when a player uses the recipe book so that
+ * repeated clicks on the same recipe with an unchanged inventory do not recompute them.
+ * <p>
+ * The results of a {@link RecipeMatcher} only depend on the recipe and the item counts that the
+ * matcher has been populated with, so these counts are used as the cache key. They are compared
+ * exactly, which means that any inventory change that affects the results invalidates the cache.
+ * Recipe match caches are only accessed on the server thread.
+ */
+public final class RecipeMatchCache {
+	private static final class Match {
+		private final boolean matches;
+		private final IntList inputs;
+
+		private Match(boolean matches, IntList inputs) {
+			this.matches = matches;
+			this.inputs = inputs;
+		}
+	}
+
+	@Nullable
+	private Recipe<?> recipe;
+
+	private final Int2IntOpenHashMap inputs = new Int2IntOpenHashMap();
+	private final Int2ObjectOpenHashMap<Match> matches = new Int2ObjectOpenHashMap<>();
+	private int craftCount = -1;
+
+	/**
+	 * Returns whether the specified recipe can be crafted the specified number of times with the
+	 * inputs in the specified {@link RecipeMatcher}.
+	 * This is equivalent to {@link RecipeMatcher#match(Recipe, IntList, int)}.
+	 *
+	 * @param matcher a {@link RecipeMatcher}.
+	 * @param recipe a recipe.
+	 * @param output an {@link IntList} to which the matching input item IDs should be added.
+	 * May be {@code null}.
+	 * @param multiplier the number of times the recipe should be crafted.
+	 * @return {@code true} if the recipe can be crafted, or otherwise {@code false}.
+	 */
+	public boolean match(
+			RecipeMatcher matcher, Recipe<?> recipe, @Nullable IntList output, int multiplier
+	) {
+		update(matcher, recipe);
+
+		Match match = matches.get(multiplier);
+
+		if (match == null) {
+			final IntList inputs = new IntArrayList();
+			match = new Match(matcher.match(recipe, inputs, multiplier), inputs);
+			matches.put(multiplier, match);
+		}
+
+		//RecipeMatcher only changes the output list if the recipe can be crafted.
+		if (match.matches && output != null) {
+			output.clear();
+			output.addAll(match.inputs);
+		}
+
+		return match.matches;
+	}
+
+	/**
+	 * Returns the number of times that the specified recipe can be crafted with the inputs in
+	 * the specified {@link RecipeMatcher}.
+	 * This is equivalent to {@link RecipeMatcher#countCrafts(Recipe, IntList)} with a
+	 * {@code null} output list.
+	 *
+	 * @param matcher a {@link RecipeMatcher}.
+	 * @param recipe a recipe.
+	 * @return the number of times that the recipe can be crafted.
+	 */
+	public int countCrafts(RecipeMatcher matcher, Recipe<?> recipe) {
+		update(matcher, recipe);
+
+		if (craftCount == -1) {
+			craftCount = matcher.countCrafts(recipe, null);
+		}
+
+		return craftCount;
+	}
+
+	private void update(RecipeMatcher matcher, Recipe<?> recipe) {
+		if (this.recipe != recipe || !inputs.equals(matcher.inputs)) {
+			this.recipe = recipe;
+			inputs.clear();
+			inputs.putAll(matcher.inputs);
+			matches.clear();
+			craftCount = -1;
+		}
+	}
+}
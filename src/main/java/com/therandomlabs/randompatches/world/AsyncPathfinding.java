@@ -0,0 +1,295 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.mixin.PathNodeNavigatorMixin;
+import net.minecraft.entity.ai.pathing.LandPathNodeMaker;
+import net.minecraft.entity.ai.pathing.Path;
+import net.minecraft.entity.ai.pathing.PathNode;
+import net.minecraft.entity.ai.pathing.PathNodeMaker;
+import net.minecraft.entity.ai.pathing.PathNodeNavigator;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkCache;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Handles asynchronous mob pathfinding.
+ * <p>
+ * Path searches are performed by a worker pool against {@link PathfindingSnapshot}s and
+ * stand-ins from {@link PathfindingStandIns} for the mobs that requested them, so that workers
+ * never read or modify live world or entity state. While a search is in progress, the path
+ * request returns no path; once the search has completed, its result is applied by the
+ * navigation that requested it if the path is still valid.
+ */
+public final class AsyncPathfinding {
+	/**
+	 * An asynchronous path search.
+	 */
+	public static final class Request {
+		private final Set<BlockPos> positions;
+		private final int distance;
+		private final PathfindingSnapshot snapshot;
+		private final CompletableFuture<Path> future = new CompletableFuture<>();
+
+		private Request(Set<BlockPos> positions, int distance, PathfindingSnapshot snapshot) {
+			this.positions = positions;
+			this.distance = distance;
+			this.snapshot = snapshot;
+		}
+
+		/**
+		 * Returns whether the result of this request can be used as a path to the specified
+		 * targets, i.e. whether each target is near one of the targets of this request.
+		 * This allows requests for moving targets to complete.
+		 *
+		 * @param positions the target positions.
+		 * @param distance the distance from a target at which a path is considered complete.
+		 * @return {@code true} if the result of this request can be used as a path to the
+		 * specified targets, or otherwise {@code false}.
+		 */
+		public boolean isFor(Set<BlockPos> positions, int distance) {
+			if (this.distance != distance || this.positions.size() != positions.size()) {
+				return false;
+			}
+
+			for (BlockPos pos : positions) {
+				if (this.positions.stream().noneMatch(
+						target -> target.getManhattanDistance(pos) <= MAX_TARGET_DISTANCE
+				)) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Returns whether the search has completed.
+		 *
+		 * @return {@code true} if the search has completed, or otherwise {@code false}.
+		 */
+		public boolean isDone() {
+			return future.isDone();
+		}
+
+		/**
+		 * Returns whether the found path is no longer valid because the mob has moved away from
+		 * its start or because blocks along it have changed since the search started.
+		 * This should only be called on the server thread after the search has completed.
+		 *
+		 * @param mob the mob.
+		 * @param world the world.
+		 * @return {@code true} if the found path is stale, or otherwise {@code false}.
+		 */
+		public boolean isStale(MobEntity mob, World world) {
+			final Path path = future.getNow(null);
+
+			if (path == null || path.getLength() == 0) {
+				return false;
+			}
+
+			if (path.getNode(0).getPos().getManhattanDistance(mob.getBlockPos()) >
+					MAX_START_DISTANCE) {
+				return true;
+			}
+
+			final BlockPos.Mutable pos = new BlockPos.Mutable();
+
+			for (int i = 0; i < path.getLength(); i++) {
+				final PathNode node = path.getNode(i);
+
+				//The blocks below and above each node also determine whether it can be walked on.
+				for (int y = node.y - 1; y <= node.y + 1; y++) {
+					pos.set(node.x, y, node.z);
+
+					if (!world.isChunkLoaded(pos) ||
+							world.getBlockState(pos) != snapshot.getBlockState(pos)) {
+						return true;
+					}
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Returns the found path.
+		 *
+		 * @return the found path, or {@code null} if no path was found or the search has not
+		 * completed.
+		 */
+		@Nullable
+		public Path getPath() {
+			return future.getNow(null);
+		}
+	}
+
+	private static final int MAX_START_DISTANCE = 2;
+	private static final int MAX_TARGET_DISTANCE = 2;
+	//The number of blocks below and above the range of a search that should be included in
+	//its snapshot, as the node type of a position depends on the blocks around it.
+	private static final int SNAPSHOT_MARGIN = 2;
+	private static final int MAX_QUEUED_REQUESTS = 1024;
+
+	@Nullable
+	private static ThreadPoolExecutor executor;
+	private static int executorThreads;
+
+	private AsyncPathfinding() {}
+
+	/**
+	 * Returns whether asynchronous pathfinding is enabled.
+	 *
+	 * @return {@code true} if asynchronous pathfinding is enabled, or otherwise {@code false}.
+	 */
+	public static boolean isEnabled() {
+		return RandomPatches.config().pathfinding.asyncPathfinding;
+	}
+
+	/**
+	 * Submits an asynchronous path search.
+	 * This should only be called on the server thread.
+	 *
+	 * @param world the world.
+	 * @param chunkCache the {@link ChunkCache} that contains the region to search.
+	 * @param navigator the {@link PathNodeNavigator} of the mob.
+	 * @param mob the mob.
+	 * @param positions the target positions.
+	 * @param followRange the follow range of the mob.
+	 * @param distance the distance from a target at which a path is considered complete.
+	 * @param rangeMultiplier the range multiplier of the mob.
+	 * @return a {@link Request}, or {@code null} if the path search should be performed
+	 * synchronously.
+	 */
+	@Nullable
+	public static Request submit(
+			World world, ChunkCache chunkCache, PathNodeNavigator navigator, MobEntity mob,
+			Set<BlockPos> positions, float followRange, int distance, float rangeMultiplier
+	) {
+		//Only server worlds have chunk section snapshot caches and stand-ins, and the ServerWorld
+		//mixin may be blacklisted.
+		if (!(world instanceof ChunkSectionSnapshotCacheAccessor) ||
+				!(world instanceof PathfindingStandInsAccessor)) {
+			return null;
+		}
+
+		final PathNodeNavigator workerNavigator = createWorkerNavigator(navigator);
+
+		if (workerNavigator == null) {
+			return null;
+		}
+
+		final PathfindingStandIns standIns =
+				((PathfindingStandInsAccessor) world).getPathfindingStandIns();
+		final MobEntity standIn = standIns.acquire(world, mob);
+
+		if (standIn == null) {
+			return null;
+		}
+
+		//Nodes further than the follow range from the mob are not explored.
+		final PathfindingSnapshot snapshot = new PathfindingSnapshot(
+				world, chunkCache,
+				((ChunkSectionSnapshotCacheAccessor) world).getChunkSectionSnapshotCache(),
+				MathHelper.floor(mob.getY() - followRange) - SNAPSHOT_MARGIN,
+				MathHelper.ceil(mob.getY() + followRange) + SNAPSHOT_MARGIN
+		);
+		final Set<BlockPos> targets = ImmutableSet.copyOf(positions);
+		final Request request = new Request(targets, distance, snapshot);
+
+		try {
+			getExecutor().execute(() -> {
+				try {
+					request.future.complete(workerNavigator.findPathToAny(
+							snapshot, standIn, targets, followRange, distance, rangeMultiplier
+					));
+				} catch (RuntimeException ex) {
+					RandomPatches.logger.debug("Failed to find path asynchronously", ex);
+					request.future.complete(null);
+				} finally {
+					standIns.release(standIn);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			standIns.release(standIn);
+			return null;
+		}
+
+		return request;
+	}
+
+	@Nullable
+	private static PathNodeNavigator createWorkerNavigator(PathNodeNavigator navigator) {
+		final PathNodeNavigatorMixin accessor = (PathNodeNavigatorMixin) navigator;
+		final PathNodeMaker nodeMaker = accessor.getPathNodeMaker();
+
+		//Other node makers may depend on state that is not included in snapshots.
+		if (nodeMaker.getClass() != LandPathNodeMaker.class) {
+			return null;
+		}
+
+		//Node makers hold the state of a search, so each search needs its own.
+		final LandPathNodeMaker workerNodeMaker = new LandPathNodeMaker();
+		workerNodeMaker.setCanEnterOpenDoors(nodeMaker.canEnterOpenDoors());
+		workerNodeMaker.setCanOpenDoors(nodeMaker.canOpenDoors());
+		workerNodeMaker.setCanSwim(nodeMaker.canSwim());
+		return new PathNodeNavigator(workerNodeMaker, accessor.getRange());
+	}
+
+	private static synchronized ThreadPoolExecutor getExecutor() {
+		final int threads = RandomPatches.config().pathfinding.asyncPathfindingThreads;
+
+		if (executor == null || executorThreads != threads) {
+			if (executor != null) {
+				//Already queued searches are still performed.
+				executor.shutdown();
+			}
+
+			executorThreads = threads;
+			executor = new ThreadPoolExecutor(
+					threads, threads, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS),
+					new ThreadFactoryBuilder().
+							setNameFormat("Pathfinder #%d").
+							setDaemon(true).
+							build()
+			);
+		}
+
+		return executor;
+	}
+}
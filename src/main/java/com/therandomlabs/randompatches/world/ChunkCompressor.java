@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.therandomlabs.randompatches.RPConfig;
+import com.therandomlabs.randompatches.RandomPatches;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.world.storage.ChunkStreamVersion;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Encodes and compresses serialized chunks using the configured chunk compression.
+ * <p>
+ * The compression type is recorded per chunk in the region file, so region files containing
+ * chunks compressed with different compression types can still be read.
+ */
+public final class ChunkCompressor {
+	//The length of the chunk data and the compression type byte.
+	private static final int HEADER_SIZE = 5;
+	private static final int VANILLA_COMPRESSION_LEVEL = 6;
+	private static final int SECTOR_SIZE = 4096;
+	private static final int MAX_SECTORS = 255;
+
+	private ChunkCompressor() {}
+
+	/**
+	 * Returns whether the configured chunk compression is the same as the vanilla chunk
+	 * compression.
+	 *
+	 * @return {@code true} if the configured chunk compression is the same as the vanilla chunk
+	 * compression, or otherwise {@code false}.
+	 */
+	public static boolean isVanilla() {
+		final RPConfig.ChunkStorage config = RandomPatches.config().chunkStorage;
+		return config.chunkCompression == RPConfig.ChunkCompression.DEFLATE &&
+				config.chunkCompressionLevel == VANILLA_COMPRESSION_LEVEL;
+	}
+
+	/**
+	 * Compresses the specified serialized chunk.
+	 * Chunks that would be too large to be stored uncompressed in a region file are always
+	 * compressed with deflate compression.
+	 *
+	 * @param tag a serialized chunk.
+	 * @return the compressed data in the format expected by
+	 * {@link net.minecraft.world.storage.RegionFile}.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static ByteBuffer compress(CompoundTag tag) throws IOException {
+		final RPConfig.ChunkStorage config = RandomPatches.config().chunkStorage;
+		ChunkStreamVersion version;
+		ByteArrayOutputStream stream;
+
+		if (config.chunkCompression == RPConfig.ChunkCompression.NONE) {
+			version = ChunkStreamVersion.UNCOMPRESSED;
+			stream = write(tag, null);
+
+			//RegionFile writes chunks that take up 256 or more sectors to external files,
+			//the headers of which always record deflate compression.
+			if (stream.size() > MAX_SECTORS * SECTOR_SIZE) {
+				version = ChunkStreamVersion.DEFLATE;
+				stream = write(tag, new Deflater(VANILLA_COMPRESSION_LEVEL));
+			}
+		} else {
+			version = ChunkStreamVersion.DEFLATE;
+			stream = write(tag, new Deflater(config.chunkCompressionLevel));
+		}
+
+		final ByteBuffer buffer = ByteBuffer.wrap(stream.toByteArray());
+		//The length includes the compression type byte.
+		buffer.putInt(0, buffer.limit() - HEADER_SIZE + 1);
+		buffer.put(4, (byte) version.getId());
+		return buffer;
+	}
+
+	private static ByteArrayOutputStream write(CompoundTag tag, @Nullable Deflater deflater)
+			throws IOException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream(8192);
+		stream.write(new byte[HEADER_SIZE]);
+
+		if (deflater == null) {
+			try (DataOutputStream out = new DataOutputStream(stream)) {
+				NbtIo.write(tag, out);
+			}
+
+			return stream;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new DeflaterOutputStream(stream, deflater)
+		))) {
+			NbtIo.write(tag, out);
+		} finally {
+			deflater.end();
+		}
+
+		return stream;
+	}
+}
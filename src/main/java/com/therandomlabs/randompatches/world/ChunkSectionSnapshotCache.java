@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A per-world cache of immutable chunk section block state snapshots.
+ * <p>
+ * Snapshots are never modified after they are created. When a block changes, the snapshot of
+ * its section is discarded rather than updated, so that snapshots which are being read by other
+ * threads remain consistent. The cache itself is only accessed on the server thread.
+ */
+public final class ChunkSectionSnapshotCache {
+	/**
+	 * An immutable snapshot of the block states in a chunk section.
+	 * <p>
+	 * Block states are stored as indices into a palette, so a snapshot usually takes up
+	 * 4 KiB rather than the 16 KiB required for an array of block states.
+	 */
+	public static final class Section {
+		private final BlockState[] palette;
+		//Only one of these is used; the other is empty.
+		private final byte[] byteIndices;
+		private final short[] shortIndices;
+
+		private Section(ChunkSection section) {
+			final List<BlockState> paletteList = new ArrayList<>();
+			final Reference2IntOpenHashMap<BlockState> paletteIndices =
+					new Reference2IntOpenHashMap<>();
+			paletteIndices.defaultReturnValue(-1);
+			final short[] indices = new short[4096];
+
+			for (int y = 0; y < 16; y++) {
+				for (int z = 0; z < 16; z++) {
+					for (int x = 0; x < 16; x++) {
+						final BlockState state = section.getBlockState(x, y, z);
+						int index = paletteIndices.getInt(state);
+
+						if (index == -1) {
+							index = paletteList.size();
+							paletteList.add(state);
+							paletteIndices.put(state, index);
+						}
+
+						indices[getIndex(x, y, z)] = (short) index;
+					}
+				}
+			}
+
+			palette = paletteList.toArray(new BlockState[0]);
+
+			if (palette.length > 256) {
+				byteIndices = new byte[0];
+				shortIndices = indices;
+			} else {
+				byteIndices = new byte[4096];
+				shortIndices = new short[0];
+
+				for (int i = 0; i < 4096; i++) {
+					byteIndices[i] = (byte) indices[i];
+				}
+			}
+		}
+
+		/**
+		 * Returns the block state at the specified position in this section.
+		 *
+		 * @param x the X coordinate of the position relative to this section.
+		 * @param y the Y coordinate of the position relative to this section.
+		 * @param z the Z coordinate of the position relative to this section.
+		 * @return the {@link BlockState} at the specified position.
+		 */
+		public BlockState getBlockState(int x, int y, int z) {
+			final int index = getIndex(x, y, z);
+			return palette[shortIndices.length == 0 ?
+					byteIndices[index] & 0xFF : shortIndices[index] & 0xFFFF];
+		}
+
+		private static int getIndex(int x, int y, int z) {
+			return y << 8 | z << 4 | x;
+		}
+	}
+
+	private static final int MAX_SECTIONS = 2048;
+
+	private final Long2ObjectOpenHashMap<Section> sections = new Long2ObjectOpenHashMap<>();
+
+	/**
+	 * Returns a snapshot of the block states in a chunk section.
+	 * This should only be called on the server thread.
+	 *
+	 * @param chunk a {@link WorldChunk}.
+	 * @param sectionY the Y coordinate of the chunk section.
+	 * @return a {@link Section}, or {@code null} if the chunk section is empty.
+	 */
+	@Nullable
+	public Section get(WorldChunk chunk, int sectionY) {
+		final ChunkSection section = chunk.getSectionArray()[sectionY];
+
+		//Empty sections are not cached, as they can be checked for without copying them.
+		if (ChunkSection.isEmpty(section)) {
+			return null;
+		}
+
+		final long key = ChunkSectionPos.asLong(chunk.getPos().x, sectionY, chunk.getPos().z);
+		Section snapshot = sections.get(key);
+
+		if (snapshot == null) {
+			if (sections.size() >= MAX_SECTIONS) {
+				sections.clear();
+			}
+
+			snapshot = new Section(section);
+			sections.put(key, snapshot);
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * Called when a block changes.
+	 * Discards the snapshot of the chunk section that contains the block.
+	 * This should only be called on the server thread.
+	 *
+	 * @param pos the position of the block.
+	 */
+	public void onBlockChanged(BlockPos pos) {
+		if (!sections.isEmpty()) {
+			sections.remove(ChunkSectionPos.asLong(
+					pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4
+			));
+		}
+	}
+
+	/**
+	 * Called when a chunk is loaded or unloaded.
+	 * Discards the snapshots of the sections in the chunk.
+	 * This should only be called on the server thread.
+	 *
+	 * @param chunkX the X coordinate of the chunk.
+	 * @param chunkZ the Z coordinate of the chunk.
+	 */
+	public void onChunkLoadedOrUnloaded(int chunkX, int chunkZ) {
+		if (!sections.isEmpty()) {
+			for (int y = 0; y < 16; y++) {
+				sections.remove(ChunkSectionPos.asLong(chunkX, y, chunkZ));
+			}
+		}
+	}
+}
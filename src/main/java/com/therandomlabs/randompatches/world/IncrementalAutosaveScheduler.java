@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.util.function.LongConsumer;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+
+/**
+ * Spreads the chunk saving performed by autosaves across several ticks.
+ * <p>
+ * When an autosave is requested, the chunks that need saving are queued and ordered by how long
+ * they have been observed to need saving, and the remaining chunks are queued after them.
+ * Every tick, just enough chunks are saved for the queue to be emptied within the configured
+ * number of ticks. Chunks that are still queued when the next autosave is requested keep their
+ * priority. Flushing saves, such as those performed when the server stops, are not affected.
+ * Incremental autosave schedulers are only accessed on the server thread.
+ */
+public final class IncrementalAutosaveScheduler {
+	private static boolean autosaving;
+
+	private final Long2LongOpenHashMap dirtySince = new Long2LongOpenHashMap();
+	private long[] queue = new long[0];
+	private int queueIndex;
+	private int ticksRemaining;
+
+	/**
+	 * Returns whether the server is currently performing an autosave.
+	 *
+	 * @return {@code true} if the server is currently performing an autosave, or otherwise
+	 * {@code false}.
+	 */
+	public static boolean isAutosaving() {
+		return autosaving;
+	}
+
+	/**
+	 * Sets whether the server is currently performing an autosave.
+	 *
+	 * @param autosaving whether the server is currently performing an autosave.
+	 */
+	public static void setAutosaving(boolean autosaving) {
+		IncrementalAutosaveScheduler.autosaving = autosaving;
+	}
+
+	/**
+	 * Schedules an autosave.
+	 *
+	 * @param dirtyChunks the positions of the chunks that need saving.
+	 * @param otherChunks the positions of the other chunks that should be saved.
+	 * Saving these chunks only saves their points of interest if necessary.
+	 * @param time the current world time.
+	 * @param ticks the number of ticks across which the autosave should be spread.
+	 */
+	public void schedule(
+			LongCollection dirtyChunks, LongCollection otherChunks, long time, int ticks
+	) {
+		final LongSet dirtyChunkSet = new LongOpenHashSet(dirtyChunks);
+		//Chunks that have been saved since the previous autosave, e.g. because they were
+		//unloaded, are forgotten.
+		dirtySince.keySet().retainAll(dirtyChunkSet);
+
+		for (long pos : dirtyChunks) {
+			dirtySince.putIfAbsent(pos, time);
+		}
+
+		final long[] sortedDirtyChunks = dirtySince.keySet().toLongArray();
+		LongArrays.quickSort(
+				sortedDirtyChunks, (pos1, pos2) -> Long.compare(
+						dirtySince.get(pos1), dirtySince.get(pos2)
+				)
+		);
+
+		queue = new long[sortedDirtyChunks.length + otherChunks.size()];
+		System.arraycopy(sortedDirtyChunks, 0, queue, 0, sortedDirtyChunks.length);
+
+		int index = sortedDirtyChunks.length;
+
+		for (long pos : otherChunks) {
+			queue[index++] = pos;
+		}
+
+		queueIndex = 0;
+		ticksRemaining = ticks;
+	}
+
+	/**
+	 * Saves the chunks that should be saved during the current tick.
+	 *
+	 * @param saver a {@link LongConsumer} that saves the chunk at the specified position if it
+	 * is still loaded.
+	 */
+	public void tick(LongConsumer saver) {
+		if (queueIndex >= queue.length) {
+			return;
+		}
+
+		final int ticks = Math.max(1, ticksRemaining--);
+		final int chunks = (queue.length - queueIndex + ticks - 1) / ticks;
+
+		for (int i = 0; i < chunks && queueIndex < queue.length; i++) {
+			final long pos = queue[queueIndex++];
+			dirtySince.remove(pos);
+			saver.accept(pos);
+		}
+
+		if (queueIndex >= queue.length) {
+			queue = new long[0];
+			queueIndex = 0;
+		}
+	}
+
+	/**
+	 * Discards the queued chunks.
+	 * This should be called when all chunks are saved.
+	 */
+	public void clear() {
+		dirtySince.clear();
+		queue = new long[0];
+		queueIndex = 0;
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.util.ByteBufferInputStream;
+import net.minecraft.world.storage.RegionFile;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Keeps a least recently used set of memory-mapped region files so that chunks can be read
+ * without a read system call for every chunk.
+ * <p>
+ * Region files are mapped read-only in their entirety, and are mapped again if they have grown
+ * beyond the mapped range. Chunk data is read directly from the mappings without being copied.
+ * <p>
+ * Mappings are reference counted so that they can be unmapped as soon as they are evicted or
+ * their region files are closed, but only once every {@link Range} read from them has been
+ * closed. Otherwise, they would remain mapped until they are garbage collected, which prevents
+ * region files from being deleted or renamed on Windows.
+ */
+public final class MappedRegionFiles {
+	/**
+	 * A range of a memory-mapped region file.
+	 * The region file is not unmapped until the range has been closed.
+	 */
+	public static final class Range implements Closeable {
+		private final Mapping mapping;
+		private final ByteBuffer buffer;
+		private boolean closed;
+
+		private Range(Mapping mapping, ByteBuffer buffer) {
+			this.mapping = mapping;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Returns the {@link ByteBuffer} that contains this range.
+		 * It must not be accessed after this range has been closed.
+		 *
+		 * @return the {@link ByteBuffer} that contains this range.
+		 */
+		public ByteBuffer getBuffer() {
+			return buffer;
+		}
+
+		/**
+		 * Returns an {@link InputStream} that reads the remaining bytes of this range without
+		 * copying them and closes this range when it is closed.
+		 *
+		 * @return an {@link InputStream} that reads the remaining bytes of this range.
+		 */
+		public InputStream toInputStream() {
+			return new FilterInputStream(new ByteBufferInputStream(buffer)) {
+				@Override
+				public void close() {
+					Range.this.close();
+				}
+			};
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() {
+			synchronized (mappings) {
+				if (!closed) {
+					closed = true;
+					mapping.release();
+				}
+			}
+		}
+	}
+
+	private static final class Mapping {
+		private final MappedByteBuffer buffer;
+		//The number of open ranges, plus one while the mapping is in mappings.
+		private int references = 1;
+
+		private Mapping(MappedByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		//This should only be called while mappings is locked.
+		private void release() {
+			if (--references == 0) {
+				unmap(buffer);
+			}
+		}
+	}
+
+	private static final Map<RegionFile, Mapping> mappings =
+			new LinkedHashMap<RegionFile, Mapping>(16, 0.75F, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<RegionFile, Mapping> eldest) {
+					if (size() > RandomPatches.config().chunkStorage.maxMemoryMappedRegionFiles) {
+						eldest.getValue().release();
+						return true;
+					}
+
+					return false;
+				}
+			};
+
+	//sun.misc.Unsafe#invokeCleaner is only available on Java 9 and newer.
+	@Nullable
+	private static final Object unsafe;
+	@Nullable
+	private static final Method invokeCleaner;
+
+	static {
+		Object theUnsafe = null;
+		Method method = null;
+
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			method = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			final Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			theUnsafe = field.get(null);
+		} catch (ReflectiveOperationException ignored) {
+			theUnsafe = null;
+			method = null;
+		}
+
+		unsafe = theUnsafe;
+		invokeCleaner = method;
+	}
+
+	private MappedRegionFiles() {}
+
+	/**
+	 * Returns whether region files should be memory-mapped.
+	 *
+	 * @return {@code true} if region files should be memory-mapped, or otherwise {@code false}.
+	 */
+	public static boolean isEnabled() {
+		return RandomPatches.config().chunkStorage.memoryMapRegionFiles;
+	}
+
+	/**
+	 * Returns the specified range of the specified region file from its mapping.
+	 * The returned {@link Range} must be closed once it has been read.
+	 *
+	 * @param regionFile a {@link RegionFile}.
+	 * @param channel the {@link FileChannel} of the region file.
+	 * @param offset the offset of the range.
+	 * @param size the size of the range.
+	 * @return a {@link Range}, or {@code null} if the region file is smaller than the end of the
+	 * range.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Nullable
+	public static Range read(RegionFile regionFile, FileChannel channel, int offset, int size)
+			throws IOException {
+		final long minSize = (long) offset + size;
+		final Mapping mapping;
+
+		//Only the lookup is performed while mappings is locked. The range is read afterwards.
+		synchronized (mappings) {
+			Mapping cached = mappings.get(regionFile);
+
+			if (cached == null || cached.buffer.capacity() < minSize) {
+				final long fileSize = channel.size();
+
+				if (fileSize < minSize || fileSize > Integer.MAX_VALUE) {
+					return null;
+				}
+
+				if (cached != null) {
+					cached.release();
+				}
+
+				cached = new Mapping(channel.map(FileChannel.MapMode.READ_ONLY, 0L, fileSize));
+				mappings.put(regionFile, cached);
+			}
+
+			mapping = cached;
+			mapping.references++;
+		}
+
+		final ByteBuffer buffer = mapping.buffer.duplicate();
+		buffer.position(offset);
+		buffer.limit(offset + size);
+		return new Range(mapping, buffer.slice());
+	}
+
+	/**
+	 * Called when a region file is closed.
+	 * Unmaps the region file once every {@link Range} read from it has been closed.
+	 *
+	 * @param regionFile a {@link RegionFile}.
+	 */
+	public static void onClose(RegionFile regionFile) {
+		synchronized (mappings) {
+			final Mapping mapping = mappings.remove(regionFile);
+
+			if (mapping != null) {
+				mapping.release();
+			}
+		}
+	}
+
+	//This should only be called once no ranges of the mapping are open, as the mapping must not
+	//be accessed after it is unmapped.
+	private static void unmap(MappedByteBuffer mapping) {
+		try {
+			if (invokeCleaner != null) {
+				invokeCleaner.invoke(unsafe, mapping);
+				return;
+			}
+
+			//On Java 8, mappings are sun.nio.ch.DirectBuffers.
+			final Method cleanerMethod = mapping.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			final Object cleaner = cleanerMethod.invoke(mapping);
+
+			if (cleaner != null) {
+				final Method clean = cleaner.getClass().getMethod("clean");
+				clean.setAccessible(true);
+				clean.invoke(cleaner);
+			}
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			RandomPatches.logger.warn(
+					"Failed to unmap region file; it will be unmapped when it is garbage " +
+							"collected",
+					ex
+			);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.network.packet.s2c.play.ParticleS2CPacket;
+import net.minecraft.particle.ParticleEffect;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ * Batches the particles spawned on the server during a world tick so that particles of the same
+ * type that are spawned close to each other are sent to players as a single
+ * {@link ParticleS2CPacket}.
+ * <p>
+ * Particles are grouped into cells. Each cell is sent as a packet centered on the average
+ * position of its particles, and the particle offsets are widened to cover the spread of the
+ * original positions. Packets are only sent to players within the configured distance.
+ * Particle batchers are only accessed on the server thread.
+ */
+public final class ParticleBatcher {
+	private static final class Batch {
+		private int count;
+		private double sumX;
+		private double sumY;
+		private double sumZ;
+		private double minX = Double.POSITIVE_INFINITY;
+		private double minY = Double.POSITIVE_INFINITY;
+		private double minZ = Double.POSITIVE_INFINITY;
+		private double maxX = Double.NEGATIVE_INFINITY;
+		private double maxY = Double.NEGATIVE_INFINITY;
+		private double maxZ = Double.NEGATIVE_INFINITY;
+		private double offsetX;
+		private double offsetY;
+		private double offsetZ;
+
+		private void add(
+				double x, double y, double z, double offsetX, double offsetY, double offsetZ
+		) {
+			count++;
+			sumX += x;
+			sumY += y;
+			sumZ += z;
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			minZ = Math.min(minZ, z);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+			maxZ = Math.max(maxZ, z);
+			this.offsetX = Math.max(this.offsetX, offsetX);
+			this.offsetY = Math.max(this.offsetY, offsetY);
+			this.offsetZ = Math.max(this.offsetZ, offsetZ);
+		}
+
+		private ParticleS2CPacket toPacket(ParticleEffect effect, double x, double y, double z) {
+			//Offsets are used as the standard deviations of the particle positions, so a quarter
+			//of the range covers most of the original positions.
+			return new ParticleS2CPacket(
+					effect, false, x, y, z,
+					(float) Math.max(offsetX, (maxX - minX) / 4.0),
+					(float) Math.max(offsetY, (maxY - minY) / 4.0),
+					(float) Math.max(offsetZ, (maxZ - minZ) / 4.0), 0.0F, count
+			);
+		}
+	}
+
+	private static final double CELL_SIZE = 2.0;
+
+	private final Map<ParticleEffect, Long2ObjectOpenHashMap<Batch>> batches = new HashMap<>();
+
+	/**
+	 * Adds a particle to be sent at the end of the current world tick.
+	 *
+	 * @param effect the particle effect.
+	 * @param x the X coordinate.
+	 * @param y the Y coordinate.
+	 * @param z the Z coordinate.
+	 * @param offsetX the standard deviation of the X coordinate.
+	 * @param offsetY the standard deviation of the Y coordinate.
+	 * @param offsetZ the standard deviation of the Z coordinate.
+	 */
+	public void add(
+			ParticleEffect effect, double x, double y, double z, double offsetX, double offsetY,
+			double offsetZ
+	) {
+		final long cell = BlockPos.asLong(
+				MathHelper.floor(x / CELL_SIZE), MathHelper.floor(y / CELL_SIZE),
+				MathHelper.floor(z / CELL_SIZE)
+		);
+		batches.computeIfAbsent(effect, e -> new Long2ObjectOpenHashMap<>()).
+				computeIfAbsent(cell, c -> new Batch()).
+				add(x, y, z, Math.abs(offsetX), Math.abs(offsetY), Math.abs(offsetZ));
+	}
+
+	/**
+	 * Sends the batched particles to the players in the specified world that are within the
+	 * specified distance.
+	 *
+	 * @param world the world.
+	 * @param distance the maximum distance between a player and a particle batch.
+	 */
+	public void flush(ServerWorld world, int distance) {
+		if (batches.isEmpty()) {
+			return;
+		}
+
+		final List<ServerPlayerEntity> players = world.getPlayers();
+		final double maxSquaredDistance = (double) distance * distance;
+
+		for (Map.Entry<ParticleEffect, Long2ObjectOpenHashMap<Batch>> entry :
+				batches.entrySet()) {
+			for (Batch batch : entry.getValue().values()) {
+				final double x = batch.sumX / batch.count;
+				final double y = batch.sumY / batch.count;
+				final double z = batch.sumZ / batch.count;
+				final ParticleS2CPacket packet = batch.toPacket(entry.getKey(), x, y, z);
+
+				for (ServerPlayerEntity player : players) {
+					if (player.squaredDistanceTo(x, y, z) < maxSquaredDistance) {
+						player.networkHandler.sendPacket(packet);
+					}
+				}
+			}
+		}
+
+		batches.clear();
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.therandomlabs.randompatches.RandomPatches;
+import com.therandomlabs.randompatches.mixin.ChunkCacheMixin;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.ai.pathing.PathNodeType;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkCache;
+import net.minecraft.world.chunk.WorldChunk;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A per-world cache of the {@link PathNodeType}s returned by
+ * {@code LandPathNodeMaker.getLandNodeType}, which only depend on the blocks around a position.
+ * <p>
+ * Node types are stored in compact per-chunk-section arrays. Cached node types are invalidated
+ * when a nearby block changes or when a nearby chunk is loaded or unloaded.
+ * The cache is only accessed on the server thread.
+ */
+public final class PathNodeTypeCache {
+	private static final PathNodeType[] TYPES = PathNodeType.values();
+	private static final int MAX_SECTIONS = 8192;
+
+	//These are read by the pathfinding statistics, which may be recorded on worker threads.
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+
+	private final Long2ObjectOpenHashMap<byte[]> sections = new Long2ObjectOpenHashMap<>();
+
+	/**
+	 * Returns the {@link PathNodeTypeCache} that should be used for the specified position, or
+	 * {@code null} if node types at the specified position should not be cached.
+	 *
+	 * @param world a {@link BlockView}.
+	 * @param x an X coordinate.
+	 * @param y a Y coordinate.
+	 * @param z a Z coordinate.
+	 * @return a {@link PathNodeTypeCache}, or {@code null} if node types at the specified position
+	 * should not be cached.
+	 */
+	@Nullable
+	public static PathNodeTypeCache get(BlockView world, int x, int y, int z) {
+		//The node type of a position depends on the blocks below and above it.
+		if (y < 1 || y > 254 || !RandomPatches.config().pathfinding.cacheNodeTypes) {
+			return null;
+		}
+
+		final World actualWorld;
+
+		if (world instanceof ChunkCache) {
+			final ChunkCacheMixin chunkCache = (ChunkCacheMixin) world;
+
+			//Chunk caches only contain a region of the world, so the neighbors of positions near
+			//the edge of that region may be missing.
+			if (!containsNeighbors(chunkCache, x, z)) {
+				return null;
+			}
+
+			actualWorld = chunkCache.getWorld();
+		} else if (world instanceof World) {
+			actualWorld = (World) world;
+		} else {
+			return null;
+		}
+
+		return get(actualWorld);
+	}
+
+	/**
+	 * Returns the number of node type cache hits.
+	 *
+	 * @return the number of node type cache hits.
+	 */
+	public static long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of node type cache misses.
+	 *
+	 * @return the number of node type cache misses.
+	 */
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the cached node type at the specified position.
+	 *
+	 * @param x an X coordinate.
+	 * @param y a Y coordinate.
+	 * @param z a Z coordinate.
+	 * @return the cached {@link PathNodeType}, or {@code null} if it is not cached.
+	 */
+	@Nullable
+	public PathNodeType get(int x, int y, int z) {
+		final byte[] section = sections.get(ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4));
+
+		if (section != null) {
+			final int type = section[getIndex(x, y, z)];
+
+			if (type != 0) {
+				hits.incrementAndGet();
+				return TYPES[type - 1];
+			}
+		}
+
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Caches the node type at the specified position.
+	 *
+	 * @param x an X coordinate.
+	 * @param y a Y coordinate.
+	 * @param z a Z coordinate.
+	 * @param type a {@link PathNodeType}.
+	 */
+	public void put(int x, int y, int z, PathNodeType type) {
+		final long key = ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4);
+		byte[] section = sections.get(key);
+
+		if (section == null) {
+			if (sections.size() >= MAX_SECTIONS) {
+				sections.clear();
+			}
+
+			section = new byte[4096];
+			sections.put(key, section);
+		}
+
+		section[getIndex(x, y, z)] = (byte) (type.ordinal() + 1);
+	}
+
+	/**
+	 * Called when a block changes.
+	 * Invalidates the node types of all positions that depend on the block.
+	 * This should only be called on the server thread.
+	 *
+	 * @param pos the position of the block.
+	 */
+	public void onBlockChanged(BlockPos pos) {
+		if (sections.isEmpty()) {
+			return;
+		}
+
+		final int blockX = pos.getX();
+		final int blockY = pos.getY();
+		final int blockZ = pos.getZ();
+
+		//Node types depend on the block below and the neighbors of a position.
+		for (int y = Math.max(blockY - 1, 0); y <= Math.min(blockY + 1, 255); y++) {
+			for (int x = blockX - 1; x <= blockX + 1; x++) {
+				for (int z = blockZ - 1; z <= blockZ + 1; z++) {
+					final byte[] section =
+							sections.get(ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4));
+
+					if (section != null) {
+						section[getIndex(x, y, z)] = 0;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Called when a chunk is loaded or unloaded.
+	 * Invalidates the node types in the chunk and its neighbors.
+	 * This should only be called on the server thread.
+	 *
+	 * @param chunkX the X coordinate of the chunk.
+	 * @param chunkZ the Z coordinate of the chunk.
+	 */
+	public void onChunkLoadedOrUnloaded(int chunkX, int chunkZ) {
+		if (sections.isEmpty()) {
+			return;
+		}
+
+		for (int x = chunkX - 1; x <= chunkX + 1; x++) {
+			for (int z = chunkZ - 1; z <= chunkZ + 1; z++) {
+				for (int y = 0; y < 16; y++) {
+					sections.remove(ChunkSectionPos.asLong(x, y, z));
+				}
+			}
+		}
+	}
+
+	@Nullable
+	private static PathNodeTypeCache get(World world) {
+		if (world instanceof ServerWorld && world instanceof PathNodeTypeCacheAccessor &&
+				((ServerWorld) world).getServer().isOnThread()) {
+			return ((PathNodeTypeCacheAccessor) world).getPathNodeTypeCache();
+		}
+
+		return null;
+	}
+
+	private static boolean containsNeighbors(ChunkCacheMixin chunkCache, int x, int z) {
+		final Chunk[][] chunks = chunkCache.getChunks();
+
+		for (int chunkX = (x - 1) >> 4; chunkX <= (x + 1) >> 4; chunkX++) {
+			final int i = chunkX - chunkCache.getMinX();
+
+			if (i < 0 || i >= chunks.length) {
+				return false;
+			}
+
+			for (int chunkZ = (z - 1) >> 4; chunkZ <= (z + 1) >> 4; chunkZ++) {
+				final int j = chunkZ - chunkCache.getMinZ();
+
+				if (j < 0 || j >= chunks[i].length || !(chunks[i][j] instanceof WorldChunk)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private static int getIndex(int x, int y, int z) {
+		return (y & 15) << 8 | (z & 15) << 4 | x & 15;
+	}
+}
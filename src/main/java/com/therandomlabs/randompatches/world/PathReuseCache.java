@@ -0,0 +1,363 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.therandomlabs.randompatches.RandomPatches;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.ai.pathing.Path;
+import net.minecraft.entity.ai.pathing.PathNode;
+import net.minecraft.entity.ai.pathing.PathNodeMaker;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A short-lived per-world cache of found paths that allows mobs with the same properties that
+ * start near each other and search for a path to the same target to reuse a path rather than
+ * searching for a new one.
+ * <p>
+ * Paths are keyed by coarse start cell, target, entity type, mob size and node maker
+ * capabilities. A reused path is spliced so that it starts at the node closest to the mob.
+ * Cached paths are discarded after a configurable number of ticks or when a block near one of
+ * their nodes changes. The cache is only accessed on the server thread.
+ */
+public final class PathReuseCache {
+	private static final class Key {
+		private final EntityType<?> type;
+		private final Class<?> nodeMakerClass;
+		private final long startCell;
+		private final BlockPos target;
+		private final int distance;
+		private final int sizeX;
+		private final int sizeY;
+		private final boolean canEnterOpenDoors;
+		private final boolean canOpenDoors;
+		private final boolean canSwim;
+		private final int hashCode;
+
+		private Key(MobEntity mob, PathNodeMaker nodeMaker, BlockPos target, int distance) {
+			final BlockPos pos = mob.getBlockPos();
+			type = mob.getType();
+			nodeMakerClass = nodeMaker.getClass();
+			startCell = BlockPos.asLong(
+					pos.getX() >> CELL_SHIFT, pos.getY() >> CELL_SHIFT, pos.getZ() >> CELL_SHIFT
+			);
+			this.target = target;
+			this.distance = distance;
+			sizeX = MathHelper.floor(mob.getWidth() + 1.0F);
+			sizeY = MathHelper.floor(mob.getHeight() + 1.0F);
+			canEnterOpenDoors = nodeMaker.canEnterOpenDoors();
+			canOpenDoors = nodeMaker.canOpenDoors();
+			canSwim = nodeMaker.canSwim();
+			hashCode = Objects.hash(
+					type, nodeMakerClass, startCell, target, distance, sizeX, sizeY,
+					canEnterOpenDoors, canOpenDoors, canSwim
+			);
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+
+			if (!(object instanceof Key)) {
+				return false;
+			}
+
+			final Key key = (Key) object;
+			return type == key.type && nodeMakerClass == key.nodeMakerClass &&
+					startCell == key.startCell && target.equals(key.target) &&
+					distance == key.distance && sizeX == key.sizeX && sizeY == key.sizeY &&
+					canEnterOpenDoors == key.canEnterOpenDoors &&
+					canOpenDoors == key.canOpenDoors && canSwim == key.canSwim;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	private static final class Entry {
+		private final Key key;
+		private final Path path;
+		private final long expiryTime;
+		private final LongSet sections = new LongOpenHashSet();
+
+		private Entry(Key key, Path path, long expiryTime) {
+			this.key = key;
+			this.path = path;
+			this.expiryTime = expiryTime;
+
+			for (int i = 0; i < path.getLength(); i++) {
+				final PathNode node = path.getNode(i);
+				sections.add(ChunkSectionPos.asLong(node.x >> 4, node.y >> 4, node.z >> 4));
+			}
+		}
+
+		private boolean dependsOn(BlockPos pos) {
+			for (int i = 0; i < path.getLength(); i++) {
+				final PathNode node = path.getNode(i);
+				final int y = pos.getY() - node.y;
+
+				//Whether a node can be walked through depends on the block below it, the blocks
+				//that the mob occupies and the neighboring blocks.
+				if (Math.abs(pos.getX() - node.x) <= 1 && Math.abs(pos.getZ() - node.z) <= 1 &&
+						y >= -1 && y <= key.sizeY) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+
+	private static final int CELL_SHIFT = 2;
+	private static final int MAX_ENTRIES = 1024;
+	private static final int MAX_SPLICE_SEARCH_NODES = 8;
+
+	private static long reusedPaths;
+
+	private final Map<Key, Entry> entries = new HashMap<>();
+	private final Long2ObjectOpenHashMap<List<Entry>> entriesBySection =
+			new Long2ObjectOpenHashMap<>();
+
+	/**
+	 * Returns the {@link PathReuseCache} of the specified world, or {@code null} if paths should
+	 * not be reused.
+	 *
+	 * @param world a {@link World}.
+	 * @return a {@link PathReuseCache}, or {@code null} if paths should not be reused.
+	 */
+	@Nullable
+	public static PathReuseCache get(World world) {
+		if (RandomPatches.config().pathfinding.reusePaths && world instanceof ServerWorld &&
+				world instanceof PathReuseCacheAccessor &&
+				((ServerWorld) world).getServer().isOnThread()) {
+			return ((PathReuseCacheAccessor) world).getPathReuseCache();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the number of paths that have been reused.
+	 *
+	 * @return the number of paths that have been reused.
+	 */
+	public static long getReusedPaths() {
+		return reusedPaths;
+	}
+
+	/**
+	 * Returns a cached path that the specified mob can reuse.
+	 *
+	 * @param world the world.
+	 * @param mob the mob.
+	 * @param nodeMaker the {@link PathNodeMaker} of the mob.
+	 * @param positions the target positions.
+	 * @param distance the distance from a target at which a path is considered complete.
+	 * @return a spliced copy of a cached path, or {@code null} if there is no cached path that
+	 * the mob can reuse.
+	 */
+	@Nullable
+	public Path get(
+			World world, MobEntity mob, PathNodeMaker nodeMaker, Set<BlockPos> positions,
+			int distance
+	) {
+		if (positions.size() != 1) {
+			return null;
+		}
+
+		final Entry entry = entries.get(
+				new Key(mob, nodeMaker, positions.iterator().next(), distance)
+		);
+
+		if (entry == null) {
+			return null;
+		}
+
+		if (world.getTime() >= entry.expiryTime) {
+			remove(entry);
+			return null;
+		}
+
+		final Path path = splice(entry.path, mob.getBlockPos());
+
+		if (path != null) {
+			reusedPaths++;
+		}
+
+		return path;
+	}
+
+	/**
+	 * Caches a path that has been found for the specified mob.
+	 *
+	 * @param world the world.
+	 * @param mob the mob.
+	 * @param nodeMaker the {@link PathNodeMaker} of the mob.
+	 * @param positions the target positions.
+	 * @param distance the distance from a target at which a path is considered complete.
+	 * @param path the found path.
+	 */
+	public void put(
+			World world, MobEntity mob, PathNodeMaker nodeMaker, Set<BlockPos> positions,
+			int distance, Path path
+	) {
+		if (positions.size() != 1 || !path.reachesTarget() || path.getLength() == 0) {
+			return;
+		}
+
+		final long time = world.getTime();
+
+		if (entries.size() >= MAX_ENTRIES) {
+			removeExpired(time);
+
+			if (entries.size() >= MAX_ENTRIES) {
+				clear();
+			}
+		}
+
+		final Key key = new Key(mob, nodeMaker, positions.iterator().next(), distance);
+		final Entry oldEntry = entries.get(key);
+
+		if (oldEntry != null) {
+			remove(oldEntry);
+		}
+
+		//The path is copied because paths can be modified by the mobs that follow them.
+		final Entry entry = new Entry(key, copy(path, 0), time +
+				RandomPatches.config().pathfinding.reusedPathLifetimeTicks);
+		entries.put(key, entry);
+
+		for (long section : entry.sections) {
+			entriesBySection.computeIfAbsent(section, s -> new ArrayList<>()).add(entry);
+		}
+	}
+
+	/**
+	 * Called when a block changes.
+	 * Discards the cached paths that depend on the block.
+	 * This should only be called on the server thread.
+	 *
+	 * @param pos the position of the block.
+	 */
+	public void onBlockChanged(BlockPos pos) {
+		if (entries.isEmpty()) {
+			return;
+		}
+
+		for (int y = (pos.getY() - 1) >> 4; y <= (pos.getY() + 1) >> 4; y++) {
+			for (int x = (pos.getX() - 1) >> 4; x <= (pos.getX() + 1) >> 4; x++) {
+				for (int z = (pos.getZ() - 1) >> 4; z <= (pos.getZ() + 1) >> 4; z++) {
+					final List<Entry> sectionEntries =
+							entriesBySection.get(ChunkSectionPos.asLong(x, y, z));
+
+					if (sectionEntries == null) {
+						continue;
+					}
+
+					for (Entry entry : new ArrayList<>(sectionEntries)) {
+						if (entry.dependsOn(pos)) {
+							remove(entry);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void remove(Entry entry) {
+		entries.remove(entry.key, entry);
+
+		for (long section : entry.sections) {
+			final List<Entry> sectionEntries = entriesBySection.get(section);
+
+			if (sectionEntries != null) {
+				sectionEntries.remove(entry);
+
+				if (sectionEntries.isEmpty()) {
+					entriesBySection.remove(section);
+				}
+			}
+		}
+	}
+
+	private void removeExpired(long time) {
+		for (Entry entry : new ArrayList<>(entries.values())) {
+			if (time >= entry.expiryTime) {
+				remove(entry);
+			}
+		}
+	}
+
+	private void clear() {
+		entries.clear();
+		entriesBySection.clear();
+	}
+
+	@Nullable
+	private static Path splice(Path path, BlockPos start) {
+		int closestIndex = -1;
+		int closestDistance = Integer.MAX_VALUE;
+
+		for (int i = 0; i < Math.min(path.getLength(), MAX_SPLICE_SEARCH_NODES); i++) {
+			final int distance = path.getNode(i).getPos().getManhattanDistance(start);
+
+			if (distance < closestDistance) {
+				closestIndex = i;
+				closestDistance = distance;
+			}
+		}
+
+		//The mob must be able to walk directly to the first node of the spliced path.
+		return closestDistance > 1 ? null : copy(path, closestIndex);
+	}
+
+	private static Path copy(Path path, int startIndex) {
+		final List<PathNode> nodes = new ArrayList<>(path.getLength() - startIndex);
+
+		for (int i = startIndex; i < path.getLength(); i++) {
+			nodes.add(path.getNode(i));
+		}
+
+		return new Path(nodes, path.getTarget(), path.reachesTarget());
+	}
+}
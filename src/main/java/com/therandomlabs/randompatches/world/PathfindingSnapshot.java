@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import com.therandomlabs.randompatches.mixin.ChunkCacheMixin;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkCache;
+import net.minecraft.world.chunk.WorldChunk;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An immutable snapshot of the block states in the region of a {@link ChunkCache}.
+ * <p>
+ * A snapshot is created on the server thread, after which it may be read by any thread,
+ * which allows path searches to be performed on worker threads.
+ * Only the chunk sections in the vertical range that a search can reach are included in a
+ * snapshot, and block entities are not included.
+ */
+public final class PathfindingSnapshot extends ChunkCache {
+	private static final BlockState AIR = Blocks.AIR.getDefaultState();
+	private static final BlockState VOID_AIR = Blocks.VOID_AIR.getDefaultState();
+
+	private final int minChunkX;
+	private final int minChunkZ;
+	private final int sizeX;
+	private final int sizeZ;
+	private final int minSectionY;
+	private final int maxSectionY;
+	private final boolean[] loadedChunks;
+	private final ChunkSectionSnapshotCache.Section[] sections;
+
+	/**
+	 * Constructs a {@link PathfindingSnapshot} of the region of the specified {@link ChunkCache}.
+	 * This should only be called on the server thread.
+	 *
+	 * @param world the world.
+	 * @param chunkCache a {@link ChunkCache}.
+	 * @param cache the {@link ChunkSectionSnapshotCache} of the world.
+	 * @param minY the minimum Y coordinate that should be included in the snapshot.
+	 * @param maxY the maximum Y coordinate that should be included in the snapshot.
+	 */
+	public PathfindingSnapshot(
+			World world, ChunkCache chunkCache, ChunkSectionSnapshotCache cache, int minY,
+			int maxY
+	) {
+		this(world, (ChunkCacheMixin) chunkCache, cache, minY, maxY);
+	}
+
+	private PathfindingSnapshot(
+			World world, ChunkCacheMixin chunkCache, ChunkSectionSnapshotCache cache, int minY,
+			int maxY
+	) {
+		super(
+				world,
+				new BlockPos(chunkCache.getMinX() << 4, 0, chunkCache.getMinZ() << 4),
+				new BlockPos(
+						(chunkCache.getMinX() + chunkCache.getChunks().length - 1) << 4, 0,
+						(chunkCache.getMinZ() + chunkCache.getChunks()[0].length - 1) << 4
+				)
+		);
+
+		final Chunk[][] chunks = chunkCache.getChunks();
+		minChunkX = chunkCache.getMinX();
+		minChunkZ = chunkCache.getMinZ();
+		sizeX = chunks.length;
+		sizeZ = chunks[0].length;
+		minSectionY = Math.max(minY >> 4, 0);
+		maxSectionY = Math.min(maxY >> 4, 15);
+		loadedChunks = new boolean[sizeX * sizeZ];
+		sections = new ChunkSectionSnapshotCache.Section[sizeX * sizeZ * 16];
+
+		for (int x = 0; x < sizeX; x++) {
+			for (int z = 0; z < sizeZ; z++) {
+				if (chunks[x][z] instanceof WorldChunk) {
+					final int index = x * sizeZ + z;
+					loadedChunks[index] = true;
+
+					for (int y = minSectionY; y <= maxSectionY; y++) {
+						sections[index * 16 + y] = cache.get((WorldChunk) chunks[x][z], y);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BlockState getBlockState(BlockPos pos) {
+		final int y = pos.getY();
+
+		if (y < 0 || y > 255) {
+			return AIR;
+		}
+
+		final int x = (pos.getX() >> 4) - minChunkX;
+		final int z = (pos.getZ() >> 4) - minChunkZ;
+
+		if (x < 0 || x >= sizeX || z < 0 || z >= sizeZ || !loadedChunks[x * sizeZ + z]) {
+			return VOID_AIR;
+		}
+
+		final int sectionY = y >> 4;
+
+		//Sections that are out of reach are treated in the same way as unloaded chunks.
+		if (sectionY < minSectionY || sectionY > maxSectionY) {
+			return VOID_AIR;
+		}
+
+		final ChunkSectionSnapshotCache.Section section = sections[(x * sizeZ + z) * 16 + sectionY];
+		return section == null ?
+				AIR : section.getBlockState(pos.getX() & 15, y & 15, pos.getZ() & 15);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FluidState getFluidState(BlockPos pos) {
+		return getBlockState(pos).getFluidState();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Nullable
+	@Override
+	public BlockEntity getBlockEntity(BlockPos pos) {
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BlockView getChunkAsView(int chunkX, int chunkZ) {
+		//Collision checks read block states through the returned view.
+		return this;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.therandomlabs.randompatches.mixin.EntityAsyncPathfindingMixin;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.ai.pathing.PathNodeType;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.world.World;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A per-world pool of stand-ins for the mobs that asynchronous path searches are performed for.
+ * <p>
+ * Node makers read the dimensions, position, bounding box and pathfinding penalties of a mob,
+ * and {@link net.minecraft.entity.ai.pathing.LandPathNodeMaker#clear()} writes a pathfinding
+ * penalty, so workers search using a stand-in that is not added to the world. A stand-in is only
+ * created when every existing stand-in of the same entity type is in use, and it is only used by
+ * one search at a time. Only the state read by node makers is copied to a stand-in. Tracked data
+ * is not copied, since setting it may make a stand-in play sounds or spawn particles.
+ */
+public final class PathfindingStandIns {
+	private static final PathNodeType[] PATH_NODE_TYPES = PathNodeType.values();
+
+	private final Map<EntityType<?>, Queue<MobEntity>> standIns = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns an unused stand-in for the specified mob with the state read by node makers copied
+	 * from the mob.
+	 * This should only be called on the server thread.
+	 *
+	 * @param world the world.
+	 * @param mob the mob.
+	 * @return a stand-in for the specified mob, or {@code null} if no stand-in can be created for
+	 * the mob.
+	 */
+	@Nullable
+	public MobEntity acquire(World world, MobEntity mob) {
+		MobEntity standIn = standIns.computeIfAbsent(
+				mob.getType(), type -> new ConcurrentLinkedQueue<>()
+		).poll();
+
+		if (standIn == null) {
+			final Entity entity = mob.getType().create(world);
+
+			if (!(entity instanceof MobEntity) ||
+					!(entity instanceof EntityAsyncPathfindingMixin)) {
+				return null;
+			}
+
+			standIn = (MobEntity) entity;
+		}
+
+		final EntityAsyncPathfindingMixin accessor = (EntityAsyncPathfindingMixin) standIn;
+		//The dimensions must be set before the position, since setting the position recalculates
+		//the bounding box.
+		accessor.setDimensions(mob.getDimensions(mob.getPose()));
+		standIn.copyPositionAndRotation(mob);
+		standIn.setBoundingBox(mob.getBoundingBox());
+		standIn.setOnGround(mob.isOnGround());
+		accessor.setTouchingWater(mob.isTouchingWater());
+		standIn.stepHeight = mob.stepHeight;
+
+		for (PathNodeType type : PATH_NODE_TYPES) {
+			standIn.setPathfindingPenalty(type, mob.getPathfindingPenalty(type));
+		}
+
+		return standIn;
+	}
+
+	/**
+	 * Returns the specified stand-in to the pool once the search that it was used by has
+	 * completed.
+	 * This may be called on any thread.
+	 *
+	 * @param standIn a stand-in returned by {@link #acquire(World, MobEntity)}.
+	 */
+	public void release(MobEntity standIn) {
+		standIns.get(standIn.getType()).add(standIn);
+	}
+}
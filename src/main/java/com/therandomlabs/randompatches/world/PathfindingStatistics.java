@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.minecraft.entity.EntityType;
+
+/**
+ * Path search statistics aggregated per entity type.
+ * Statistics may be recorded by any thread.
+ */
+public final class PathfindingStatistics {
+	/**
+	 * The path search statistics of an entity type.
+	 */
+	public static final class Entry {
+		private final EntityType<?> type;
+		private final LongAdder searches = new LongAdder();
+		private final LongAdder pathsFound = new LongAdder();
+		private final LongAdder nodesExplored = new LongAdder();
+		private final LongAdder nodeTypeCalls = new LongAdder();
+		private final LongAdder cacheHits = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		private Entry(EntityType<?> type) {
+			this.type = type;
+		}
+
+		/**
+		 * Returns the entity type.
+		 *
+		 * @return the entity type.
+		 */
+		public EntityType<?> getType() {
+			return type;
+		}
+
+		/**
+		 * Returns the number of path searches.
+		 *
+		 * @return the number of path searches.
+		 */
+		public long getSearches() {
+			return searches.sum();
+		}
+
+		/**
+		 * Returns the number of path searches that found a path to their target.
+		 *
+		 * @return the number of path searches that found a path to their target.
+		 */
+		public long getPathsFound() {
+			return pathsFound.sum();
+		}
+
+		/**
+		 * Returns the total number of nodes explored.
+		 *
+		 * @return the total number of nodes explored.
+		 */
+		public long getNodesExplored() {
+			return nodesExplored.sum();
+		}
+
+		/**
+		 * Returns the total number of node type requests.
+		 *
+		 * @return the total number of node type requests.
+		 */
+		public long getNodeTypeCalls() {
+			return nodeTypeCalls.sum();
+		}
+
+		/**
+		 * Returns the total number of node type cache hits.
+		 *
+		 * @return the total number of node type cache hits.
+		 */
+		public long getCacheHits() {
+			return cacheHits.sum();
+		}
+
+		/**
+		 * Returns the total path search wall time.
+		 *
+		 * @return the total path search wall time in nanoseconds.
+		 */
+		public long getNanos() {
+			return nanos.sum();
+		}
+	}
+
+	private static final Map<EntityType<?>, Entry> entries = new ConcurrentHashMap<>();
+	private static volatile long startTime = System.nanoTime();
+
+	private PathfindingStatistics() {}
+
+	/**
+	 * Records a path search.
+	 *
+	 * @param type the type of the entity that searched for a path.
+	 * @param nanos the wall time of the path search in nanoseconds.
+	 * @param pathFound whether a path to the target was found.
+	 * @param nodesExplored the number of nodes explored.
+	 * @param nodeTypeCalls the number of node type requests.
+	 * @param cacheHits the number of node type cache hits.
+	 */
+	public static void record(
+			EntityType<?> type, long nanos, boolean pathFound, int nodesExplored,
+			int nodeTypeCalls, long cacheHits
+	) {
+		final Entry entry = entries.computeIfAbsent(type, Entry::new);
+		entry.searches.increment();
+		entry.nanos.add(nanos);
+		entry.nodesExplored.add(nodesExplored);
+		entry.nodeTypeCalls.add(nodeTypeCalls);
+		entry.cacheHits.add(cacheHits);
+
+		if (pathFound) {
+			entry.pathsFound.increment();
+		}
+	}
+
+	/**
+	 * Returns the statistics of all entity types sorted by total path search wall time in
+	 * descending order.
+	 *
+	 * @return a list of {@link Entry} objects.
+	 */
+	public static List<Entry> getWorstOffenders() {
+		final List<Entry> sorted = new ArrayList<>(entries.values());
+		sorted.sort(Comparator.comparingLong(Entry::getNanos).reversed());
+		return sorted;
+	}
+
+	/**
+	 * Returns the time since the statistics were last reset.
+	 *
+	 * @return the time since the statistics were last reset in nanoseconds.
+	 */
+	public static long getElapsedNanos() {
+		return System.nanoTime() - startTime;
+	}
+
+	/**
+	 * Resets all statistics.
+	 */
+	public static void reset() {
+		entries.clear();
+		startTime = System.nanoTime();
+	}
+}
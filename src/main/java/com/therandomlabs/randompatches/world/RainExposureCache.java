@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import it.unimi.dsi.fastutil.ints.Int2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+
+/**
+ * Caches whether block positions in a world are being rained on so that entities in the same
+ * columns share the heightmap, sky light and biome lookups performed by
+ * {@link World#hasRain(BlockPos)}.
+ * <p>
+ * Results are grouped by column and cleared every tick, as well as when a block in their column
+ * changes. Rain exposure depends on the height of a position, so results are cached per
+ * position within a column rather than per column.
+ */
+public final class RainExposureCache {
+	private final Long2ObjectOpenHashMap<Int2BooleanOpenHashMap> columns =
+			new Long2ObjectOpenHashMap<>();
+	private long time = Long.MIN_VALUE;
+
+	/**
+	 * Returns whether the specified position in the specified world is being rained on.
+	 * This is equivalent to {@link World#hasRain(BlockPos)}.
+	 *
+	 * @param world the world that this cache belongs to.
+	 * @param pos a position.
+	 * @return {@code true} if the position is being rained on, or otherwise {@code false}.
+	 */
+	public boolean hasRain(World world, BlockPos pos) {
+		if (!world.isRaining()) {
+			return false;
+		}
+
+		if (time != world.getTime()) {
+			time = world.getTime();
+			columns.clear();
+		}
+
+		final Int2BooleanOpenHashMap column = columns.computeIfAbsent(
+				ChunkPos.toLong(pos.getX(), pos.getZ()), key -> new Int2BooleanOpenHashMap(2)
+		);
+
+		if (column.containsKey(pos.getY())) {
+			return column.get(pos.getY());
+		}
+
+		final boolean hasRain = world.hasRain(pos);
+		column.put(pos.getY(), hasRain);
+		return hasRain;
+	}
+
+	/**
+	 * Called when a block changes.
+	 * Discards the cached results in the column of the block.
+	 *
+	 * @param pos the position of the block.
+	 */
+	public void onBlockChanged(BlockPos pos) {
+		if (!columns.isEmpty()) {
+			columns.remove(ChunkPos.toLong(pos.getX(), pos.getZ()));
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 TheRandomLabs
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.therandomlabs.randompatches.world;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the progress of the world save performed when a singleplayer world is closed.
+ * <p>
+ * The total is the number of chunks that needed saving when each world started saving, and a
+ * chunk is only counted as saved once it has been written to its region file. Tracking does not
+ * change how chunks are saved.
+ */
+public final class WorldSaveProgress {
+	private static final AtomicInteger total = new AtomicInteger();
+	private static final AtomicInteger saved = new AtomicInteger();
+
+	private static volatile boolean tracking;
+
+	private WorldSaveProgress() {}
+
+	/**
+	 * Starts tracking the progress of a world save.
+	 */
+	public static void start() {
+		total.set(0);
+		saved.set(0);
+		tracking = true;
+	}
+
+	/**
+	 * Stops tracking the progress of a world save.
+	 */
+	public static void stop() {
+		tracking = false;
+	}
+
+	/**
+	 * Returns whether the progress of a world save is being tracked.
+	 *
+	 * @return {@code true} if the progress of a world save is being tracked, or otherwise
+	 * {@code false}.
+	 */
+	public static boolean isTracking() {
+		return tracking;
+	}
+
+	/**
+	 * Adds the specified number of chunks to the total number of chunks to be saved.
+	 *
+	 * @param chunks a number of chunks.
+	 */
+	public static void addChunks(int chunks) {
+		total.addAndGet(chunks);
+	}
+
+	/**
+	 * Called when a chunk has been written to its region file.
+	 */
+	public static void onChunkSaved() {
+		saved.incrementAndGet();
+	}
+
+	/**
+	 * Returns the number of chunks that have been saved.
+	 * This never exceeds the value returned by {@link #getTotal()}, since chunks that are modified
+	 * while the world is being saved are saved again.
+	 *
+	 * @return the number of chunks that have been saved.
+	 */
+	public static int getSaved() {
+		return Math.min(saved.get(), total.get());
+	}
+
+	/**
+	 * Returns the total number of chunks to be saved.
+	 *
+	 * @return the total number of chunks to be saved.
+	 */
+	public static int getTotal() {
+		return total.get();
+	}
+}